@@ -1,17 +1,33 @@
 package com.wallassouza.bibliotecaapi;
 
-import org.modelmapper.ModelMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.BookMapper;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.CachedBookMapper;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.LoanMapper;
+import com.wallassouza.bibliotecaapi.api.resource.service.BookServiceImpl;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling
+@EnableCaching
 public class BibliotecaApiApplication {
 	@Bean
-	public ModelMapper modelMapper(){
-		return new ModelMapper();
+	public BookMapper bookMapper(ObjectProvider<ObjectMapper> objectMapper, ObjectProvider<CacheManager> cacheManager){
+		Cache cache = cacheManager.getIfAvailable(NoOpCacheManager::new).getCache(BookServiceImpl.BOOKS_JSON);
+		return new CachedBookMapper(objectMapper.getIfAvailable(ObjectMapper::new), cache);
+	}
+
+	@Bean
+	public LoanMapper loanMapper(BookMapper bookMapper){
+		return new LoanMapper(bookMapper);
 	}
 
 	public static void main(String[] args) {
@@ -2,6 +2,9 @@ package com.wallassouza.bibliotecaapi.api.resource;
 
 import com.wallassouza.bibliotecaapi.api.resource.exception.ApiErros;
 import com.wallassouza.bibliotecaapi.api.resource.exception.BusinessException;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -27,6 +30,19 @@ public class ApplicationControllerAdvice {
         return new ApiErros(ex);
     }
 
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity handleTaskRejectedException(TaskRejectedException ex){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiErros("Servidor sobrecarregado, tente novamente"));
+    }
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiErros handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException ex){
+        return new ApiErros("Registro alterado por outra requisicao, tente novamente");
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity handleResponseStatusException(ResponseStatusException ex){
         return new ResponseEntity(new ApiErros(ex), ex.getStatus());
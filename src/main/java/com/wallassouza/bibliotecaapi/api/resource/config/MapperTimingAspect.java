@@ -0,0 +1,19 @@
+package com.wallassouza.bibliotecaapi.api.resource.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+@Aspect
+public class MapperTimingAspect {
+
+    @Around("within(com.wallassouza.bibliotecaapi.api.resource.mapper..*) && execution(public * *(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long started = RequestTimeline.begin(RequestTimeline.Phase.MAPPING);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RequestTimeline.end(RequestTimeline.Phase.MAPPING, started);
+        }
+    }
+}
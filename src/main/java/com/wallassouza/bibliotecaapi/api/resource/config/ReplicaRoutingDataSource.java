@@ -0,0 +1,126 @@
+package com.wallassouza.bibliotecaapi.api.resource.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Envia as transacoes read-only para as replicas (round-robin entre as
+ * saudaveis) e todo o resto para o primario. Uma replica que falha ao entregar
+ * conexao sai da rotacao ate o proximo health check bem sucedido; sem replica
+ * saudavel a leitura vai para o primario.
+ *
+ * Precisa ficar atras de um LazyConnectionDataSourceProxy: o JpaTransactionManager
+ * pede a conexao antes de marcar a transacao como read-only.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).collect(Collectors.toList());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long started = RequestTimeline.begin(RequestTimeline.Phase.POOL);
+        try {
+            return route();
+        } finally {
+            RequestTimeline.end(RequestTimeline.Phase.POOL, started);
+        }
+    }
+
+    private Connection route() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = nextHealthy();
+                if (replica == null) {
+                    break;
+                }
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException ex) {
+                    replica.markDown(ex);
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Scheduled(fixedDelayString = "${application.datasource.routing.health-check-ms:5000}")
+    public void checkReplicas() {
+        replicas.forEach(Replica::check);
+    }
+
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) replica.dataSource).close();
+            }
+        }
+    }
+
+    public long healthyReplicas() {
+        return replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    private Replica nextHealthy() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static final class Replica {
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        void markDown(SQLException ex) {
+            if (healthy) {
+                log.warn("Replica indisponivel, leituras voltam para o primario", ex);
+            }
+            healthy = false;
+        }
+
+        void check() {
+            try (Connection connection = dataSource.getConnection()) {
+                if (!connection.isValid(1)) {
+                    throw new SQLException("Conexao invalida");
+                }
+                if (!healthy) {
+                    log.info("Replica voltou a responder");
+                }
+                healthy = true;
+            } catch (SQLException ex) {
+                markDown(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.wallassouza.bibliotecaapi.api.resource.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties("application.datasource.routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled;
+
+    private long healthCheckMs = 5000;
+
+    private long connectionTimeoutMs = 1000;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+    }
+}
@@ -0,0 +1,106 @@
+package com.wallassouza.bibliotecaapi.api.resource.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Soma o tempo gasto em cada fase de uma requisicao (espera por conexao, SQL,
+ * mapeamento e serializacao). A linha do tempo fica presa a thread corrente e
+ * pode ser levada para os workers com {@link #propagate(Runnable)}. Fases
+ * aninhadas da mesma fase contam uma vez so.
+ */
+public final class RequestTimeline {
+
+    public enum Phase {
+        POOL, SQL, MAPPING, SERIALIZATION
+    }
+
+    public static final long NOT_TIMED = Long.MIN_VALUE;
+    private static final long NESTED = Long.MIN_VALUE + 1;
+    private static final Phase[] PHASES = Phase.values();
+    private static final ThreadLocal<Attachment> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicLongArray nanos = new AtomicLongArray(PHASES.length);
+
+    public static RequestTimeline current() {
+        Attachment attachment = CURRENT.get();
+        return attachment == null ? null : attachment.timeline;
+    }
+
+    public static void attach(RequestTimeline timeline) {
+        CURRENT.set(new Attachment(timeline));
+    }
+
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    public static Runnable propagate(Runnable task) {
+        RequestTimeline timeline = current();
+        if (timeline == null) {
+            return task;
+        }
+        return () -> {
+            Attachment previous = CURRENT.get();
+            attach(timeline);
+            try {
+                task.run();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Marca o inicio de uma fase; o valor devolvido vai para {@link #end}. Sem
+     * linha do tempo na thread o custo e so o ThreadLocal.get.
+     */
+    public static long begin(Phase phase) {
+        Attachment attachment = CURRENT.get();
+        if (attachment == null) {
+            return NOT_TIMED;
+        }
+        return attachment.depth[phase.ordinal()]++ == 0 ? System.nanoTime() : NESTED;
+    }
+
+    public static void end(Phase phase, long started) {
+        if (started == NOT_TIMED) {
+            return;
+        }
+        Attachment attachment = CURRENT.get();
+        if (attachment == null) {
+            return;
+        }
+        attachment.depth[phase.ordinal()]--;
+        if (started != NESTED) {
+            attachment.timeline.nanos.addAndGet(phase.ordinal(), System.nanoTime() - started);
+        }
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public long nanos(Phase phase) {
+        return nanos.get(phase.ordinal());
+    }
+
+    public Map<Phase, Long> phases() {
+        Map<Phase, Long> phases = new EnumMap<>(Phase.class);
+        for (Phase phase : PHASES) {
+            phases.put(phase, nanos(phase));
+        }
+        return phases;
+    }
+
+    private static final class Attachment {
+        private final RequestTimeline timeline;
+        private final int[] depth = new int[PHASES.length];
+
+        Attachment(RequestTimeline timeline) {
+            this.timeline = timeline;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.wallassouza.bibliotecaapi.api.resource.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(value = "application.timeline.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestTimelineConfig {
+
+    @Bean
+    public SlowRequestLog slowRequestLog(@Value("${application.timeline.slow-requests.capacity}") int capacity,
+                                         @Value("${application.timeline.slow-requests.threshold-ms}") long thresholdMs) {
+        return new SlowRequestLog(capacity, thresholdMs);
+    }
+
+    @Bean
+    public SlowRequestsEndpoint slowRequestsEndpoint(SlowRequestLog slowRequestLog) {
+        return new SlowRequestsEndpoint(slowRequestLog);
+    }
+
+    @Bean
+    public MapperTimingAspect mapperTimingAspect() {
+        return new MapperTimingAspect();
+    }
+
+    @Bean
+    public WebMvcConfigurer requestTimelineConfigurer(MeterRegistry registry, SlowRequestLog slowRequestLog) {
+        RequestTimelineInterceptor interceptor = new RequestTimelineInterceptor(registry, slowRequestLog);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry interceptors) {
+                // depois do SqlBudgetInterceptor, para o afterCompletion ainda ver a contagem de SQL
+                interceptors.addInterceptor(interceptor).addPathPatterns("/api/**").order(1);
+            }
+
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                for (int i = 0; i < converters.size(); i++) {
+                    HttpMessageConverter<?> converter = converters.get(i);
+                    if (converter.getClass() == MappingJackson2HttpMessageConverter.class) {
+                        converters.set(i, new TimedJackson2HttpMessageConverter(
+                                ((MappingJackson2HttpMessageConverter) converter).getObjectMapper()));
+                    }
+                }
+            }
+        };
+    }
+}
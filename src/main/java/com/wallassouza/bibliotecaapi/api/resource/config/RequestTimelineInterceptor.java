@@ -0,0 +1,96 @@
+package com.wallassouza.bibliotecaapi.api.resource.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+@RequiredArgsConstructor
+public class RequestTimelineInterceptor implements AsyncHandlerInterceptor {
+
+    static final String TIMELINE_ATTRIBUTE = RequestTimelineInterceptor.class.getName() + ".TIMELINE";
+    static final String METRIC = "http.server.requests.phase";
+    static final String OTHER = "other";
+
+    private final MeterRegistry registry;
+    private final SlowRequestLog slowRequests;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestTimeline timeline = (RequestTimeline) request.getAttribute(TIMELINE_ATTRIBUTE);
+        if (timeline == null) {
+            timeline = new RequestTimeline();
+            request.setAttribute(TIMELINE_ATTRIBUTE, timeline);
+        }
+        RequestTimeline.attach(timeline);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestTimeline.detach();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestTimeline timeline = (RequestTimeline) request.getAttribute(TIMELINE_ATTRIBUTE);
+        RequestTimeline.detach();
+        if (timeline == null) {
+            return;
+        }
+        request.removeAttribute(TIMELINE_ATTRIBUTE);
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        long total = timeline.elapsedNanos();
+        long measured = 0;
+        for (RequestTimeline.Phase phase : RequestTimeline.Phase.values()) {
+            long nanos = timeline.nanos(phase);
+            measured += nanos;
+            record(request.getMethod(), uri, phase.name().toLowerCase(Locale.ROOT), nanos);
+        }
+        long other = Math.max(0, total - measured);
+        record(request.getMethod(), uri, OTHER, other);
+
+        if (slowRequests.isSlow(total)) {
+            SqlStatementCounter.Scope scope =
+                    (SqlStatementCounter.Scope) request.getAttribute(SqlBudgetInterceptor.SCOPE_ATTRIBUTE);
+            slowRequests.add(SlowRequestLog.SlowRequest.builder()
+                    .timestamp(LocalDateTime.now())
+                    .method(request.getMethod())
+                    .uri(uri)
+                    .path(request.getRequestURI())
+                    .status(response.getStatus())
+                    .sqlStatements(scope == null ? null : scope.count())
+                    .totalMs(millis(total))
+                    .poolMs(millis(timeline.nanos(RequestTimeline.Phase.POOL)))
+                    .sqlMs(millis(timeline.nanos(RequestTimeline.Phase.SQL)))
+                    .mappingMs(millis(timeline.nanos(RequestTimeline.Phase.MAPPING)))
+                    .serializationMs(millis(timeline.nanos(RequestTimeline.Phase.SERIALIZATION)))
+                    .otherMs(millis(other))
+                    .build());
+        }
+    }
+
+    private void record(String method, String uri, String phase, long nanos) {
+        Timer.builder(METRIC)
+                .description("Time spent per request phase")
+                .tag("method", method)
+                .tag("uri", uri)
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,34 @@
+package com.wallassouza.bibliotecaapi.api.resource.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+@Aspect
+@RequiredArgsConstructor
+public class ServiceSqlMetricsAspect {
+
+    static final String METRIC = "service.sql.statements";
+
+    private final MeterRegistry registry;
+
+    @Around("within(com.wallassouza.bibliotecaapi.api.resource.service..*) " +
+            "&& @within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object count(ProceedingJoinPoint joinPoint) throws Throwable {
+        SqlStatementCounter.Scope scope = SqlStatementCounter.open();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            scope.close();
+            DistributionSummary.builder(METRIC)
+                    .description("SQL statements issued per service method call")
+                    .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .register(registry)
+                    .record(scope.count());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.wallassouza.bibliotecaapi.api.resource.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Guarda as ultimas requisicoes acima do limite de lentidao, com a divisao por
+ * fase. So as lentas passam pelo lock, o caminho comum e uma comparacao.
+ */
+public class SlowRequestLog {
+
+    private final int capacity;
+    private final long thresholdNanos;
+    private final Deque<SlowRequest> recent;
+
+    public SlowRequestLog(int capacity, long thresholdMillis) {
+        this.capacity = capacity;
+        this.thresholdNanos = thresholdMillis * 1_000_000;
+        this.recent = new ArrayDeque<>(capacity);
+    }
+
+    public boolean isSlow(long totalNanos) {
+        return totalNanos >= thresholdNanos;
+    }
+
+    public synchronized void add(SlowRequest request) {
+        if (recent.size() == capacity) {
+            recent.removeFirst();
+        }
+        recent.addLast(request);
+    }
+
+    public List<SlowRequest> slowest(int limit) {
+        List<SlowRequest> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(recent);
+        }
+        return snapshot.stream()
+                .sorted(Comparator.comparingDouble(SlowRequest::getTotalMs).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class SlowRequest {
+        private LocalDateTime timestamp;
+        private String method;
+        private String uri;
+        private String path;
+        private int status;
+        private Integer sqlStatements;
+        private double totalMs;
+        private double poolMs;
+        private double sqlMs;
+        private double mappingMs;
+        private double serializationMs;
+        private double otherMs;
+    }
+}
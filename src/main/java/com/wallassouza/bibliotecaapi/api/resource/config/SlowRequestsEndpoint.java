@@ -0,0 +1,22 @@
+package com.wallassouza.bibliotecaapi.api.resource.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+@Endpoint(id = "slowrequests")
+@RequiredArgsConstructor
+public class SlowRequestsEndpoint {
+
+    static final int DEFAULT_LIMIT = 20;
+
+    private final SlowRequestLog slowRequests;
+
+    @ReadOperation
+    public List<SlowRequestLog.SlowRequest> slowest(@Nullable Integer limit) {
+        return slowRequests.slowest(limit == null ? DEFAULT_LIMIT : limit);
+    }
+}
@@ -0,0 +1,30 @@
+package com.wallassouza.bibliotecaapi.api.resource.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpMethod;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Orcamento de comandos SQL por requisicao, por metodo HTTP e padrao de URI
+ * (application.sql.budget.endpoints.post[/api/loans]=6). Um GET e um POST no
+ * mesmo padrao fazem trabalhos diferentes e tem orcamentos diferentes.
+ */
+@Data
+@ConfigurationProperties("application.sql.budget")
+public class SqlBudgetProperties {
+
+    private int defaultBudget = 10;
+
+    private Map<HttpMethod, Map<String, Integer>> endpoints = new EnumMap<>(HttpMethod.class);
+
+    public int budgetFor(String method, String pattern) {
+        HttpMethod httpMethod = HttpMethod.resolve(method);
+        Map<String, Integer> budgets = httpMethod == null ? null : endpoints.get(httpMethod);
+        return (budgets == null ? Collections.<String, Integer>emptyMap() : budgets)
+                .getOrDefault(pattern, defaultBudget);
+    }
+}
@@ -0,0 +1,31 @@
+package com.wallassouza.bibliotecaapi.api.resource.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@ConditionalOnProperty(value = "application.sql.metrics.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(SqlBudgetProperties.class)
+public class SqlMetricsConfig {
+
+    @Bean
+    public ServiceSqlMetricsAspect serviceSqlMetricsAspect(MeterRegistry registry) {
+        return new ServiceSqlMetricsAspect(registry);
+    }
+
+    @Bean
+    public WebMvcConfigurer sqlBudgetConfigurer(MeterRegistry registry, SqlBudgetProperties properties) {
+        SqlBudgetInterceptor interceptor = new SqlBudgetInterceptor(registry, properties);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry interceptors) {
+                interceptors.addInterceptor(interceptor).addPathPatterns("/api/**");
+            }
+        };
+    }
+}
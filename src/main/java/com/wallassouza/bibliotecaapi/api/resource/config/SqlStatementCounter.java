@@ -0,0 +1,86 @@
+package com.wallassouza.bibliotecaapi.api.resource.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements Hibernate prepares while a {@link Scope} is attached
+ * to the current thread. Scopes nest and can be carried to worker threads with
+ * {@link #propagate(Runnable)}.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    static final int MAX_RECORDED_STATEMENTS = 50;
+
+    private static final ThreadLocal<Deque<Scope>> ACTIVE = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public String inspect(String sql) {
+        for (Scope scope : ACTIVE.get()) {
+            scope.record(sql);
+        }
+        return sql;
+    }
+
+    public static Scope open() {
+        Scope scope = new Scope();
+        attach(scope);
+        return scope;
+    }
+
+    public static void attach(Scope scope) {
+        ACTIVE.get().push(scope);
+    }
+
+    public static void detach(Scope scope) {
+        ACTIVE.get().removeFirstOccurrence(scope);
+    }
+
+    public static Runnable propagate(Runnable task) {
+        List<Scope> scopes = new ArrayList<>(ACTIVE.get());
+        if (scopes.isEmpty()) {
+            return task;
+        }
+        return () -> {
+            scopes.forEach(SqlStatementCounter::attach);
+            try {
+                task.run();
+            } finally {
+                scopes.forEach(SqlStatementCounter::detach);
+            }
+        };
+    }
+
+    public static class Scope implements AutoCloseable {
+
+        private final AtomicInteger count = new AtomicInteger();
+        private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        void record(String sql) {
+            if (count.incrementAndGet() <= MAX_RECORDED_STATEMENTS) {
+                statements.add(sql);
+            }
+        }
+
+        public int count() {
+            return count.get();
+        }
+
+        public List<String> statements() {
+            synchronized (statements) {
+                return new ArrayList<>(statements);
+            }
+        }
+
+        @Override
+        public void close() {
+            detach(this);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.wallassouza.bibliotecaapi.api.resource.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Configuration
+public class StartupConfig {
+
+    /**
+     * Com spring.main.lazy-initialization os beans com @Scheduled nunca seriam
+     * criados e os jobs nao rodariam; esses continuam eager.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter scheduledBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> hasScheduledMethods(beanType);
+    }
+
+    /**
+     * Usado na execucao de treino do arquivo CDS e pelo StartupTimeBenchmark:
+     * registra no log o tempo ate a aplicacao ficar pronta e encerra a JVM.
+     */
+    @Bean
+    @ConditionalOnProperty(value = "application.startup.exit-after-ready", havingValue = "true")
+    public ExitAfterReady exitAfterReady() {
+        return new ExitAfterReady();
+    }
+
+    private static boolean hasScheduledMethods(Class<?> beanType) {
+        if (beanType == null) {
+            return false;
+        }
+        AtomicBoolean scheduled = new AtomicBoolean();
+        ReflectionUtils.doWithMethods(beanType,
+                method -> scheduled.set(true),
+                method -> !scheduled.get() && AnnotatedElementUtils.hasAnnotation(method, Scheduled.class));
+        return scheduled.get();
+    }
+
+    static class ExitAfterReady implements ApplicationListener<ApplicationReadyEvent>, Ordered {
+
+        @Override
+        public void onApplicationEvent(ApplicationReadyEvent event) {
+            log.info("startup-ms={}", ManagementFactory.getRuntimeMXBean().getUptime());
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.wallassouza.bibliotecaapi.api.resource.config;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
 import springfox.documentation.builders.ApiInfoBuilder;
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
@@ -9,10 +13,18 @@ import springfox.documentation.service.ApiInfo;
 import springfox.documentation.service.Contact;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
+import springfox.documentation.spring.web.plugins.DocumentationPluginsBootstrapper;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
 @EnableSwagger2
 @Configuration
+@ConditionalOnProperty(value = "springfox.documentation.enabled", havingValue = "true", matchIfMissing = true)
 public class SwaggerConfig {
 
     @Bean
@@ -25,6 +37,36 @@ public class SwaggerConfig {
                 .apiInfo(apiInfo());
     }
 
+    /**
+     * Com springfox.documentation.auto-startup=false o scan dos controllers sai da
+     * subida da aplicacao e acontece no primeiro acesso a documentacao.
+     */
+    @Bean
+    @ConditionalOnProperty(value = "springfox.documentation.auto-startup", havingValue = "false")
+    public FilterRegistrationBean<OncePerRequestFilter> swaggerOnFirstAccess(
+            ObjectProvider<DocumentationPluginsBootstrapper> bootstrapper) {
+        OncePerRequestFilter filter = new OncePerRequestFilter() {
+            private volatile boolean started;
+
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain chain) throws ServletException, IOException {
+                if (!started) {
+                    synchronized (this) {
+                        if (!started) {
+                            bootstrapper.ifAvailable(DocumentationPluginsBootstrapper::start);
+                            started = true;
+                        }
+                    }
+                }
+                chain.doFilter(request, response);
+            }
+        };
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/v2/api-docs", "/v3/api-docs", "/swagger-resources/*", "/swagger-ui/*");
+        return registration;
+    }
+
     private ApiInfo apiInfo(){
         return new ApiInfoBuilder()
                 .title("Biblioteca API")
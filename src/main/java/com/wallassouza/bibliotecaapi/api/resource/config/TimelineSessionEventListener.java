@@ -0,0 +1,47 @@
+package com.wallassouza.bibliotecaapi.api.resource.config;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Registrado em hibernate.session.events.auto: leva a espera por conexao e a
+ * execucao dos statements para a {@link RequestTimeline} da thread.
+ */
+public class TimelineSessionEventListener extends BaseSessionEventListener {
+
+    private long acquisition = RequestTimeline.NOT_TIMED;
+    private long execution = RequestTimeline.NOT_TIMED;
+    private long batch = RequestTimeline.NOT_TIMED;
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        acquisition = RequestTimeline.begin(RequestTimeline.Phase.POOL);
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        RequestTimeline.end(RequestTimeline.Phase.POOL, acquisition);
+        acquisition = RequestTimeline.NOT_TIMED;
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        execution = RequestTimeline.begin(RequestTimeline.Phase.SQL);
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestTimeline.end(RequestTimeline.Phase.SQL, execution);
+        execution = RequestTimeline.NOT_TIMED;
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batch = RequestTimeline.begin(RequestTimeline.Phase.SQL);
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestTimeline.end(RequestTimeline.Phase.SQL, batch);
+        batch = RequestTimeline.NOT_TIMED;
+    }
+}
@@ -1,22 +1,38 @@
 package com.wallassouza.bibliotecaapi.api.resource.controller;
 
 import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookImportResultDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.CursorPageDTO;
 import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.SlicePageDTO;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.BookMapper;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.LoanMapper;
 import com.wallassouza.bibliotecaapi.api.resource.model.Book;
 import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.service.BookImportService;
 import com.wallassouza.bibliotecaapi.api.resource.service.BookService;
+import com.wallassouza.bibliotecaapi.api.resource.service.ExportService;
 import com.wallassouza.bibliotecaapi.api.resource.service.LoanService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
@@ -25,70 +41,159 @@ import java.util.stream.Collectors;
 public class BookController {
 
     private final BookService bookService;
-    private final ModelMapper modelMapper;
+    private final BookMapper bookMapper;
+    private final LoanMapper loanMapper;
 
     private final LoanService loanService;
-
+    private final BookImportService bookImportService;
+    private final ExportService exportService;
+    @Qualifier("jdbcExecutor")
+    private final TaskExecutor jdbcExecutor;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public BookDTO create(@RequestBody @Valid BookDTO dto) {
-        Book entidade = modelMapper.map(dto, Book.class);
-        entidade = bookService.save(entidade);
-        return modelMapper.map(entidade, BookDTO.class);
+    public CompletableFuture<BookDTO> create(@RequestBody @Valid BookDTO dto) {
+        Book entidade = bookMapper.toEntity(dto);
+        return CompletableFuture.supplyAsync(() -> bookMapper.toDto(bookService.save(entidade)), jdbcExecutor);
+    }
+
+    @PostMapping(value = "import", consumes = {BookImportService.NDJSON, BookImportService.CSV})
+    public BookImportResultDTO importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                           InputStream body) throws IOException {
+        if (MediaType.valueOf(BookImportService.CSV).isCompatibleWith(contentType)) {
+            return bookImportService.importCsv(body);
+        }
+        return bookImportService.importNdjson(body);
+    }
+
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "CSV") ExportService.Format format){
+        StreamingResponseBody body = output -> exportService.exportBooks(output, format);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=books." + format.name().toLowerCase())
+                .contentType(format == ExportService.Format.CSV
+                        ? MediaType.valueOf("text/csv")
+                        : MediaType.valueOf("application/x-ndjson"))
+                .body(body);
     }
 
     @GetMapping("{id}")
-    public BookDTO get(@PathVariable Long id) {
-        return bookService.getById(id)
-                .map(book -> modelMapper.map(book, BookDTO.class))
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    public CompletableFuture<ResponseEntity<BookDTO>> get(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (ifNoneMatch != null) {
+                Long version = bookService.getVersion(id)
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+                String etag = ETags.of(id, version);
+                if (ETags.matches(ifNoneMatch, etag)) {
+                    return ETags.<BookDTO>notModified(etag);
+                }
+            }
+            Book book = bookService.getById(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            return ResponseEntity.ok()
+                    .eTag(ETags.of(book.getId(), book.getVersion()))
+                    .body(bookMapper.toDto(book));
+        }, jdbcExecutor);
     }
 
     @DeleteMapping("{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void delete(@PathVariable Long id) {
-        Book bookId = bookService.getById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        bookService.delete(bookId);
+    public CompletableFuture<Void> delete(@PathVariable Long id) {
+        return CompletableFuture.runAsync(() -> {
+            Book bookId = bookService.getById(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            bookService.delete(bookId);
+        }, jdbcExecutor);
     }
 
     @PutMapping("{id}")
-    public BookDTO update(@PathVariable Long id, BookDTO dto) {
-        return bookService.getById(id).map(book -> {
+    public CompletableFuture<BookDTO> update(@PathVariable Long id, BookDTO dto) {
+        return CompletableFuture.supplyAsync(() -> bookService.getById(id).map(cached -> {
 
-            book.setAutor(dto.getAutor());
-            book.setTitulo(dto.getTitulo());
+            // getById devolve a instancia guardada no cache: altera uma copia
+            Book book = Book.builder()
+                    .id(cached.getId())
+                    .isbn(cached.getIsbn())
+                    .version(cached.getVersion())
+                    .autor(dto.getAutor())
+                    .titulo(dto.getTitulo())
+                    .build();
             book = bookService.update(book);
-            return modelMapper.map(book, BookDTO.class);
+            return bookMapper.toDto(book);
 
-        }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)), jdbcExecutor);
     }
 
     @GetMapping
-    public Page<BookDTO> find(BookDTO bookDTO, Pageable pageable){
-        Book filter = modelMapper.map(bookDTO, Book.class);
-        Page<Book> resultado = bookService.find(filter, pageable);
-        List<BookDTO> list = resultado.getContent()
-                .stream()
-                .map(entidade -> modelMapper.map(entidade, BookDTO.class))
-                .collect(Collectors.toList());
-        return new PageImpl<BookDTO>( list, pageable, resultado.getTotalElements());
+    public CompletableFuture<ResponseEntity<Page<BookDTO>>> find(BookDTO bookDTO, Pageable pageable,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        Book filter = bookMapper.toEntity(bookDTO);
+        return CompletableFuture.supplyAsync(() -> {
+            Page<Book> resultado = bookService.find(filter, pageable);
+            String etag = ETags.of(resultado, book -> book.getId() + ":" + book.getVersion());
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ETags.<Page<BookDTO>>notModified(etag);
+            }
+            List<BookDTO> list = resultado.getContent()
+                    .stream()
+                    .map(bookMapper::toDto)
+                    .collect(Collectors.toList());
+            Page<BookDTO> page = new PageImpl<BookDTO>( list, pageable, resultado.getTotalElements());
+            return ResponseEntity.ok().eTag(etag).body(page);
+        }, jdbcExecutor);
+    }
+
+    @GetMapping(params = "slice")
+    public CompletableFuture<SlicePageDTO<BookDTO>> findSlice(BookDTO bookDTO, Pageable pageable,
+            @RequestParam(defaultValue = "false") boolean approximateTotal){
+        Book filter = bookMapper.toEntity(bookDTO);
+        return CompletableFuture.supplyAsync(() -> {
+            Slice<Book> resultado = bookService.findSlice(filter, pageable);
+            List<BookDTO> list = resultado.getContent()
+                    .stream()
+                    .map(bookMapper::toDto)
+                    .collect(Collectors.toList());
+            Long total = approximateTotal ? bookService.getApproximateTotal(filter) : null;
+            return SlicePageDTO.of(resultado, list, total);
+        }, jdbcExecutor);
+    }
+
+    @GetMapping(params = "after")
+    public CompletableFuture<CursorPageDTO<BookDTO>> findAfter(BookDTO bookDTO,
+                                            @RequestParam String after,
+                                            @RequestParam(defaultValue = "" + CursorPageDTO.DEFAULT_SIZE) int size){
+        Book filter = bookMapper.toEntity(bookDTO);
+        int limit = CursorPageDTO.limit(size);
+        Long cursor = CursorPageDTO.decode(after);
+        return CompletableFuture.supplyAsync(() -> {
+            Slice<Book> resultado = bookService.findAfter(filter, cursor, limit);
+            List<Book> books = resultado.getContent();
+            List<BookDTO> list = books.stream()
+                    .map(bookMapper::toDto)
+                    .collect(Collectors.toList());
+            Long lastId = books.isEmpty() ? null : books.get(books.size() - 1).getId();
+            return CursorPageDTO.of(list, limit, resultado.hasNext(), lastId);
+        }, jdbcExecutor);
     }
 
     @GetMapping("{id}/loans")
-    public Page<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable){
-        Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        Page<Loan> result = loanService.getLoansByBook(book, pageable);
-        List<LoanDTO> list = result.getContent()
-                .stream()
-                .map(loan -> {
-                    Book loanBook = loan.getBook();
-                    BookDTO bookDTO = modelMapper.map(loanBook, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
-                    return loanDTO;
-                }).collect(Collectors.toList());
-        return new PageImpl<LoanDTO>(list,pageable,result.getTotalElements());
+    public CompletableFuture<ResponseEntity<Page<LoanDTO>>> loansByBook(@PathVariable Long id, Pageable pageable,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        return CompletableFuture.supplyAsync(() -> {
+            Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            Page<Loan> result = loanService.getLoansByBook(book, pageable);
+            String etag = ETags.of(result, loan -> loan.getId() + ":" + loan.getVersion(), book.getId(), book.getVersion());
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ETags.<Page<LoanDTO>>notModified(etag);
+            }
+            List<LoanDTO> list = result.getContent()
+                    .stream()
+                    .map(loanMapper::toDto)
+                    .collect(Collectors.toList());
+            Page<LoanDTO> page = new PageImpl<LoanDTO>(list,pageable,result.getTotalElements());
+            return ResponseEntity.ok().eTag(etag).body(page);
+        }, jdbcExecutor);
     }
 }
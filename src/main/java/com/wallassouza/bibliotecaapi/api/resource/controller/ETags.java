@@ -0,0 +1,50 @@
+package com.wallassouza.bibliotecaapi.api.resource.controller;
+
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Long id, Long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    // Identifica a pagina pelas versoes das linhas e pelo total, sem montar os DTOs.
+    static <T> String of(Page<T> page, Function<T, String> version, Object... context) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : context) {
+            key.append(part).append('|');
+        }
+        key.append(page.getNumber()).append('/').append(page.getSize()).append('/').append(page.getTotalElements());
+        page.forEach(item -> key.append(',').append(version.apply(item)));
+        return "\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+}
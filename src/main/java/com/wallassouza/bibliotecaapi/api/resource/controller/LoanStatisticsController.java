@@ -0,0 +1,73 @@
+package com.wallassouza.bibliotecaapi.api.resource.controller;
+
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookLoanCountDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.DailyLoansDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanDurationDTO;
+import com.wallassouza.bibliotecaapi.api.resource.service.LoanStatisticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/statistics")
+@RequiredArgsConstructor
+public class LoanStatisticsController {
+
+    private static final int MAX_LIMIT = 100;
+    private static final int DEFAULT_DAYS = 30;
+
+    private final LoanStatisticsService statisticsService;
+    @Qualifier("jdbcExecutor")
+    private final TaskExecutor jdbcExecutor;
+
+    @GetMapping("most-borrowed")
+    public CompletableFuture<List<BookLoanCountDTO>> mostBorrowed(@RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return CompletableFuture.supplyAsync(() -> statisticsService.getMostBorrowed(limit), jdbcExecutor);
+    }
+
+    @GetMapping("daily-loans")
+    public CompletableFuture<List<DailyLoansDTO>> dailyLoans(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(DEFAULT_DAYS - 1) : from;
+        checkRange(start, end);
+        return CompletableFuture.supplyAsync(() -> statisticsService.getDailyLoans(start, end), jdbcExecutor);
+    }
+
+    @GetMapping("loan-duration")
+    public CompletableFuture<LoanDurationDTO> loanDuration(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(DEFAULT_DAYS - 1) : from;
+        checkRange(start, end);
+        return CompletableFuture.supplyAsync(() -> statisticsService.getLoanDuration(start, end), jdbcExecutor);
+    }
+
+    @PostMapping("rebuild")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public CompletableFuture<Void> rebuild() {
+        return CompletableFuture.runAsync(statisticsService::rebuild, jdbcExecutor);
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days < 1 || days > LoanStatisticsService.MAX_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Range must have between 1 and " + LoanStatisticsService.MAX_DAYS + " days");
+        }
+    }
+}
@@ -1,24 +1,36 @@
 package com.wallassouza.bibliotecaapi.api.resource.controller;
 
-import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.CursorPageDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanBatchResultDTO;
 import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanDTO;
 import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanFilterDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanReturnDTO;
 import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.ReturnedLoanDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.SlicePageDTO;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.LoanMapper;
 import com.wallassouza.bibliotecaapi.api.resource.model.Book;
 import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
 import com.wallassouza.bibliotecaapi.api.resource.service.BookService;
+import com.wallassouza.bibliotecaapi.api.resource.service.ExportService;
 import com.wallassouza.bibliotecaapi.api.resource.service.LoanService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
@@ -28,50 +40,111 @@ public class loanController {
 
     private final LoanService loanService;
     private final BookService bookService;
-    private final ModelMapper modelMapper;
+    private final LoanMapper loanMapper;
+    private final ExportService exportService;
+    @Qualifier("jdbcExecutor")
+    private final TaskExecutor jdbcExecutor;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public Long create(@RequestBody LoanDTO dto) {
-        Book book = bookService
-                .getBookByIsbn(dto.getIsbn())
-                .orElseThrow(() ->
-                        new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn"));
-        Loan entidade = Loan.builder()
-                .book(book)
-                .customer(dto.getCustomer())
-                .loanDate(LocalDate.now())
-                .build();
-
-        entidade = loanService.save(entidade);
-
-        return entidade.getId();
+    public CompletableFuture<Long> create(@RequestBody LoanDTO dto) {
+        return CompletableFuture.supplyAsync(() -> {
+            Book book = bookService
+                    .getBookByIsbn(dto.getIsbn())
+                    .orElseThrow(() ->
+                            new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn"));
+            Loan entidade = Loan.builder()
+                    .book(book)
+                    .customer(dto.getCustomer())
+                    .email(dto.getEmail())
+                    .loanDate(LocalDate.now())
+                    .build();
+
+            entidade = loanService.save(entidade);
+
+            return entidade.getId();
+        }, jdbcExecutor);
     }
 
-    @PatchMapping("{id}")
-    public void returnedBook(@PathVariable Long id, @RequestBody ReturnedLoanDTO dto){
-        Loan loan = loanService.getById(id)
-                .orElseThrow( ()-> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        loan.setReturned(dto.getReturned());
+    @PostMapping("batch")
+    public CompletableFuture<List<LoanBatchResultDTO>> createAll(@RequestBody List<LoanDTO> dtos) {
+        checkBatchSize(dtos);
+        return CompletableFuture.supplyAsync(() -> loanService.saveAll(dtos), jdbcExecutor);
+    }
 
-        loanService.update(loan);
+    @PatchMapping("batch")
+    public CompletableFuture<List<LoanBatchResultDTO>> returnedBooks(@RequestBody List<LoanReturnDTO> dtos) {
+        checkBatchSize(dtos);
+        return CompletableFuture.supplyAsync(() -> loanService.returnAll(dtos), jdbcExecutor);
+    }
+
+    private static void checkBatchSize(List<?> items) {
+        if (items.isEmpty() || items.size() > LoanService.MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch must have between 1 and " + LoanService.MAX_BATCH_SIZE + " items");
+        }
+    }
+
+    @PatchMapping("{id}")
+    public CompletableFuture<Void> returnedBook(@PathVariable Long id, @RequestBody ReturnedLoanDTO dto){
+        return CompletableFuture.runAsync(() -> loanService.update(id, dto.getReturned())
+                .orElseThrow( ()-> new ResponseStatusException(HttpStatus.NOT_FOUND)), jdbcExecutor);
     }
 
     @GetMapping
-    public Page<LoanDTO> find(LoanFilterDTO dto, Pageable pageable){
-        Page<Loan> result =  loanService.find(dto,pageable);
-        List<LoanDTO> loans = result
-                .getContent()
-                .stream()
-                .map(entidade -> {
-
-                    Book book = entidade.getBook();
-                    BookDTO bookDTO = modelMapper.map(book, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(entidade, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
-                    return loanDTO;
-                }).collect(Collectors.toList());
-        return new PageImpl<LoanDTO>(loans,pageable,result.getTotalElements());
+    public CompletableFuture<Page<LoanDTO>> find(LoanFilterDTO dto, Pageable pageable){
+        return CompletableFuture.supplyAsync(() -> {
+            Page<Loan> result =  loanService.find(dto,pageable);
+            List<LoanDTO> loans = result
+                    .getContent()
+                    .stream()
+                    .map(loanMapper::toDto)
+                    .collect(Collectors.toList());
+            return new PageImpl<LoanDTO>(loans,pageable,result.getTotalElements());
+        }, jdbcExecutor);
+    }
+
+    @GetMapping(params = "slice")
+    public CompletableFuture<SlicePageDTO<LoanDTO>> findSlice(LoanFilterDTO dto, Pageable pageable,
+            @RequestParam(defaultValue = "false") boolean approximateTotal){
+        return CompletableFuture.supplyAsync(() -> {
+            Slice<Loan> result = loanService.findSlice(dto, pageable);
+            List<LoanDTO> loans = result.getContent()
+                    .stream()
+                    .map(loanMapper::toDto)
+                    .collect(Collectors.toList());
+            Long total = approximateTotal ? loanService.getApproximateTotal(dto) : null;
+            return SlicePageDTO.of(result, loans, total);
+        }, jdbcExecutor);
+    }
+
+    @GetMapping(params = "after")
+    public CompletableFuture<CursorPageDTO<LoanDTO>> findAfter(LoanFilterDTO dto,
+                                            @RequestParam String after,
+                                            @RequestParam(defaultValue = "" + CursorPageDTO.DEFAULT_SIZE) int size){
+        int limit = CursorPageDTO.limit(size);
+        Long cursor = CursorPageDTO.decode(after);
+        return CompletableFuture.supplyAsync(() -> {
+            Slice<Loan> result = loanService.findAfter(dto, cursor, limit);
+            List<Loan> content = result.getContent();
+            List<LoanDTO> loans = content.stream()
+                    .map(loanMapper::toDto)
+                    .collect(Collectors.toList());
+            Long lastId = content.isEmpty() ? null : content.get(content.size() - 1).getId();
+            return CursorPageDTO.of(loans, limit, result.hasNext(), lastId);
+        }, jdbcExecutor);
+    }
+
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "CSV") ExportService.Format format){
+        StreamingResponseBody body = output -> exportService.exportLoans(output, format);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=loans." + format.name().toLowerCase())
+                .contentType(format == ExportService.Format.CSV
+                        ? MediaType.valueOf("text/csv")
+                        : MediaType.valueOf("application/x-ndjson"))
+                .body(body);
     }
 
 }
@@ -0,0 +1,16 @@
+package com.wallassouza.bibliotecaapi.api.resource.dto.bookdto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportErrorDTO {
+    private long line;
+    private String isbn;
+    private String error;
+}
@@ -0,0 +1,37 @@
+package com.wallassouza.bibliotecaapi.api.resource.dto.bookdto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResultDTO {
+
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private long imported;
+    private long rejected;
+    private boolean errorsTruncated;
+    @Builder.Default
+    private List<BookImportErrorDTO> errors = new ArrayList<>();
+
+    public void addImported(int count) {
+        imported += count;
+    }
+
+    public void reject(long line, String isbn, String error) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new BookImportErrorDTO(line, isbn, error));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+}
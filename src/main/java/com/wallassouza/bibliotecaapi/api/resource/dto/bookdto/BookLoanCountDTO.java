@@ -0,0 +1,17 @@
+package com.wallassouza.bibliotecaapi.api.resource.dto.bookdto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookLoanCountDTO {
+    private Long bookId;
+    private String titulo;
+    private String isbn;
+    private Long loanCount;
+}
@@ -0,0 +1,72 @@
+package com.wallassouza.bibliotecaapi.api.resource.dto.bookdto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * BookDTO que carrega o proprio JSON ja serializado. O Jackson usa
+ * {@link JsonSerializable} antes do serializer de bean, entao onde quer que
+ * o livro apareca (resposta, pagina ou emprestimo) os bytes sao copiados
+ * direto para a saida.
+ *
+ * <p>As instancias sao compartilhadas pelo cache books-json e sao imutaveis:
+ * os setters lancam excecao, ja que uma alteracao nunca apareceria no JSON.
+ */
+public class CachedBookDTO extends BookDTO implements JsonSerializable {
+
+    private final Long version;
+    private final SerializableString json;
+
+    public CachedBookDTO(BookDTO dto, Long version, byte[] json) {
+        super(dto.getId(), dto.getTitulo(), dto.getAutor(), dto.getIsbn());
+        this.version = version;
+        this.json = new SerializedString(new String(json, StandardCharsets.UTF_8));
+        this.json.asUnquotedUTF8();
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    @Override
+    public void setId(long id) {
+        throw immutable();
+    }
+
+    @Override
+    public void setTitulo(String titulo) {
+        throw immutable();
+    }
+
+    @Override
+    public void setAutor(String autor) {
+        throw immutable();
+    }
+
+    @Override
+    public void setIsbn(String isbn) {
+        throw immutable();
+    }
+
+    private static UnsupportedOperationException immutable() {
+        return new UnsupportedOperationException("CachedBookDTO e imutavel; use BookMapper para uma copia alteravel");
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(json);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+}
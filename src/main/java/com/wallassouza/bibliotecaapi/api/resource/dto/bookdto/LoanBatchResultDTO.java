@@ -0,0 +1,26 @@
+package com.wallassouza.bibliotecaapi.api.resource.dto.bookdto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanBatchResultDTO {
+    private int index;
+    private Long loanId;
+    private String isbn;
+    private boolean success;
+    private String error;
+
+    public static LoanBatchResultDTO ok(int index, Long loanId, String isbn) {
+        return new LoanBatchResultDTO(index, loanId, isbn, true, null);
+    }
+
+    public static LoanBatchResultDTO error(int index, Long loanId, String isbn, String error) {
+        return new LoanBatchResultDTO(index, loanId, isbn, false, error);
+    }
+}
@@ -0,0 +1,19 @@
+package com.wallassouza.bibliotecaapi.api.resource.dto.bookdto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanDurationDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private long returnedLoans;
+    private Double averageDays;
+}
@@ -0,0 +1,26 @@
+package com.wallassouza.bibliotecaapi.api.resource.dto.bookdto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlicePageDTO<T> {
+
+    private List<T> content;
+    private int number;
+    private int size;
+    private boolean hasNext;
+    private Long approximateTotal;
+
+    public static <T> SlicePageDTO<T> of(Slice<?> slice, List<T> content, Long approximateTotal) {
+        return new SlicePageDTO<>(content, slice.getNumber(), slice.getSize(), slice.hasNext(), approximateTotal);
+    }
+}
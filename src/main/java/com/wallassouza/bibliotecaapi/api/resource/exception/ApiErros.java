@@ -18,6 +18,10 @@ public class ApiErros {
         this.errors = Arrays.asList(ex.getMessage());
     }
 
+    public ApiErros(String message){
+        this.errors = Arrays.asList(message);
+    }
+
     public ApiErros(ResponseStatusException ex){
         this.errors = Arrays.asList(ex.getReason());
     }
@@ -0,0 +1,26 @@
+package com.wallassouza.bibliotecaapi.api.resource.mapper;
+
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookDTO;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+
+public class BookMapper {
+
+    public BookDTO toDto(Book book) {
+        Long id = book.getId();
+        return BookDTO.builder()
+                .id(id == null ? 0L : id)
+                .titulo(book.getTitulo())
+                .autor(book.getAutor())
+                .isbn(book.getIsbn())
+                .build();
+    }
+
+    public Book toEntity(BookDTO dto) {
+        return Book.builder()
+                .id(dto.getId() == 0L ? null : dto.getId())
+                .titulo(dto.getTitulo())
+                .autor(dto.getAutor())
+                .isbn(dto.getIsbn())
+                .build();
+    }
+}
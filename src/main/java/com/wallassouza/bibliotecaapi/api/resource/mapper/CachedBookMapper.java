@@ -0,0 +1,41 @@
+package com.wallassouza.bibliotecaapi.api.resource.mapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.CachedBookDTO;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+
+import java.util.Objects;
+
+/**
+ * Mapeia livros para DTOs com o JSON pre-serializado, guardado por id e
+ * reaproveitado enquanto a versao do livro nao mudar.
+ */
+@RequiredArgsConstructor
+public class CachedBookMapper extends BookMapper {
+
+    private final ObjectMapper objectMapper;
+    private final Cache cache;
+
+    @Override
+    public BookDTO toDto(Book book) {
+        if (book.getId() == null) {
+            return super.toDto(book);
+        }
+        CachedBookDTO cached = cache.get(book.getId(), CachedBookDTO.class);
+        if (cached != null && Objects.equals(cached.getVersion(), book.getVersion())) {
+            return cached;
+        }
+        BookDTO dto = super.toDto(book);
+        try {
+            cached = new CachedBookDTO(dto, book.getVersion(), objectMapper.writeValueAsBytes(dto));
+        } catch (JsonProcessingException ex) {
+            return dto;
+        }
+        cache.put(book.getId(), cached);
+        return cached;
+    }
+}
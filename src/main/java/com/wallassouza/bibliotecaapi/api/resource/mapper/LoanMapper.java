@@ -0,0 +1,23 @@
+package com.wallassouza.bibliotecaapi.api.resource.mapper;
+
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanDTO;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class LoanMapper {
+
+    private final BookMapper bookMapper;
+
+    public LoanDTO toDto(Loan loan) {
+        Book book = loan.getBook();
+        return LoanDTO.builder()
+                .id(loan.getId())
+                .isbn(book == null ? null : book.getIsbn())
+                .customer(loan.getCustomer())
+                .email(loan.getEmail())
+                .book(book == null ? null : bookMapper.toDto(book))
+                .build();
+    }
+}
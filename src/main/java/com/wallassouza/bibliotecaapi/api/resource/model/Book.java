@@ -1,5 +1,6 @@
 package com.wallassouza.bibliotecaapi.api.resource.model;
 
+import com.wallassouza.bibliotecaapi.api.resource.service.BookSearchIndexListener;
 import lombok.*;
 
 import javax.persistence.*;
@@ -11,19 +12,23 @@ import java.util.List;
 @NoArgsConstructor
 @Entity
 @Table
+@EntityListeners(BookSearchIndexListener.class)
 public class Book {
 
     @Id
     @Column
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
 
     @Column
     private String titulo;
     @Column
     private String autor;
-    @Column
+    @Column(unique = true)
     private String isbn;
+    @Version
+    private Long version;
     @OneToMany(mappedBy = "book", fetch = FetchType.LAZY)
     private List<Loan> loans;
 }
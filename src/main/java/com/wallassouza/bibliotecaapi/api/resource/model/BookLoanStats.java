@@ -0,0 +1,37 @@
+package com.wallassouza.bibliotecaapi.api.resource.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table
+public class BookLoanStats implements Persistable<Long> {
+
+    @Id
+    @Column(name = "id_book")
+    private Long bookId;
+
+    private Long loanCount;
+
+    @Override
+    public Long getId() {
+        return bookId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,46 @@
+package com.wallassouza.bibliotecaapi.api.resource.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table
+public class DailyLoanStats implements Persistable<LocalDate> {
+
+    @Id
+    @Column(name = "stats_day")
+    private LocalDate day;
+
+    private Long loansStarted;
+
+    private Long loansReturned;
+
+    // soma das duracoes, em dias, dos emprestimos devolvidos no dia
+    private Long returnedLoanDays;
+
+    // emprestimos ativos ao fim do dia, contando todos os dias anteriores
+    private Long activeLoans;
+
+    @Override
+    public LocalDate getId() {
+        return day;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+package com.wallassouza.bibliotecaapi.api.resource.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table
+public class JobWatermark {
+
+    @Id
+    private String name;
+
+    private LocalDate processedUntil;
+}
@@ -19,7 +19,8 @@ public class Loan {
 
     @Id
     @Column
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_seq")
+    @SequenceGenerator(name = "loan_seq", sequenceName = "loan_seq", allocationSize = 50)
     private Long id;
 
     private String customer;
@@ -27,10 +28,17 @@ public class Loan {
     private String email;
 
     @JoinColumn(name = "id_book")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Book book;
 
     private LocalDate loanDate;
 
+    private LocalDate dueDate;
+
     private Boolean returned;
+
+    private LocalDate returnDate;
+
+    @Version
+    private Long version;
 }
@@ -0,0 +1,60 @@
+package com.wallassouza.bibliotecaapi.api.resource.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table
+public class LoanEvent {
+
+    public enum Type {
+        LOAN_CREATED,
+        LOAN_RETURNED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_event_seq")
+    @SequenceGenerator(name = "loan_event_seq", sequenceName = "loan_event_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private Type type;
+
+    private Long loanId;
+
+    private Long bookId;
+
+    private LocalDateTime occurredAt;
+
+    @Builder.Default
+    private Integer attempts = 0;
+
+    private LocalDateTime nextAttemptAt;
+
+    private String lastError;
+
+    private LocalDateTime dispatchedAt;
+
+    private LocalDateTime deadLetteredAt;
+
+    // quando o evento entrou nas estatisticas; evita contar de novo um lote reenviado
+    private LocalDateTime statsAppliedAt;
+
+    public static LoanEvent of(Type type, Loan loan) {
+        return LoanEvent.builder()
+                .type(type)
+                .loanId(loan.getId())
+                .bookId(loan.getBook() == null ? null : loan.getBook().getId())
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
+}
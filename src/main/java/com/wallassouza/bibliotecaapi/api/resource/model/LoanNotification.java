@@ -0,0 +1,55 @@
+package com.wallassouza.bibliotecaapi.api.resource.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table
+public class LoanNotification implements Persistable<Long> {
+
+    @Id
+    @Column(name = "id_loan")
+    private Long loanId;
+
+    private LocalDate lastSentOn;
+
+    private Integer sentCount;
+
+    private LocalDate nextReminderOn;
+
+    // falhas seguidas de envio, zerado a cada envio bem sucedido
+    @Builder.Default
+    private Integer failedCount = 0;
+
+    // preenchido quando failedCount chega ao limite e o aviso deixa de ser tentado
+    private LocalDate failedOn;
+
+    @Transient
+    private boolean persisted;
+
+    @Override
+    public Long getId() {
+        return loanId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+}
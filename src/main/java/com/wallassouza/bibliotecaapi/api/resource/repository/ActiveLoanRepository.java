@@ -0,0 +1,34 @@
+package com.wallassouza.bibliotecaapi.api.resource.repository;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.ActiveLoan;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface ActiveLoanRepository extends JpaRepository<ActiveLoan, Long> {
+
+    /**
+     * Grava a marca do livro se ele ainda nao estiver emprestado. Devolve 0 quando
+     * ja existe marca, assim a recusa nao passa por violacao de chave.
+     */
+    @Modifying
+    @Query(value = "insert into active_loan (id_book) select b.id from book b where b.id = :bookId " +
+            "and not exists (select 1 from active_loan a where a.id_book = b.id)", nativeQuery = true)
+    int acquire(@Param("bookId") Long bookId);
+
+    @Modifying
+    @Query(value = "insert into active_loan (id_book) select b.id from book b where b.id in (:bookIds) " +
+            "and not exists (select 1 from active_loan a where a.id_book = b.id)", nativeQuery = true)
+    int acquireAll(@Param("bookIds") Collection<Long> bookIds);
+
+    @Modifying
+    @Query("delete from ActiveLoan a where a.bookId = :bookId")
+    int release(@Param("bookId") Long bookId);
+
+    @Modifying
+    @Query("delete from ActiveLoan a where a.bookId in :bookIds")
+    int releaseAll(@Param("bookIds") Collection<Long> bookIds);
+}
@@ -0,0 +1,32 @@
+package com.wallassouza.bibliotecaapi.api.resource.repository;
+
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookLoanCountDTO;
+import com.wallassouza.bibliotecaapi.api.resource.model.BookLoanStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface BookLoanStatsRepository extends JpaRepository<BookLoanStats, Long> {
+
+    @Modifying
+    @Query(value = "merge into book_loan_stats s using (select id from book where id in (:bookIds)) b " +
+            "on s.id_book = b.id " +
+            "when matched then update set s.loan_count = s.loan_count + :loans " +
+            "when not matched then insert (id_book, loan_count) values (b.id, :loans)", nativeQuery = true)
+    int addAll(@Param("bookIds") Collection<Long> bookIds, @Param("loans") long loans);
+
+    @Query("select new com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookLoanCountDTO(" +
+            "b.id, b.titulo, b.isbn, s.loanCount) " +
+            "from BookLoanStats s, Book b where b.id = s.bookId order by s.loanCount desc, s.bookId")
+    List<BookLoanCountDTO> findMostBorrowed(Pageable pageable);
+
+    @Modifying
+    @Query(value = "insert into book_loan_stats (id_book, loan_count) " +
+            "select id_book, count(*) from loan where id_book is not null group by id_book", nativeQuery = true)
+    int rebuild();
+}
@@ -1,12 +1,84 @@
 package com.wallassouza.bibliotecaapi.api.resource.repository;
 
 import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface BookRepository extends JpaRepository <Book, Long> {
     boolean existsByIsbn(String isbn);
 
     Optional<Book> findByIsbn(String isbn);
+
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    @Query("select b.version from Book b where b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    @Query("select b from Book b where b.id > :after" +
+            " and (:titulo is null or lower(b.titulo) like lower(concat('%', :titulo, '%')))" +
+            " and (:autor is null or lower(b.autor) like lower(concat('%', :autor, '%')))" +
+            " and (:isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')))" +
+            " order by b.id")
+    Slice<Book> findByFilterAfter(@Param("titulo") String titulo
+            ,@Param("autor") String autor
+            ,@Param("isbn") String isbn
+            ,@Param("after") Long after
+            ,Pageable pageable);
+
+    @Query("select b from Book b where" +
+            " (:titulo is null or lower(b.titulo) like lower(concat('%', :titulo, '%')))" +
+            " and (:autor is null or lower(b.autor) like lower(concat('%', :autor, '%')))" +
+            " and (:isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')))")
+    Slice<Book> findSliceByFilter(@Param("titulo") String titulo
+            ,@Param("autor") String autor
+            ,@Param("isbn") String isbn
+            ,Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAll();
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select b.id as id, b.titulo as titulo, b.autor as autor from Book b")
+    Stream<SearchEntry> streamSearchEntries();
+
+    List<Book> findByIdInOrderById(Collection<Long> ids);
+
+    @Query("select b from Book b where b.id in :ids" +
+            " and (:isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')))")
+    Page<Book> findByIdInAndIsbn(@Param("ids") Collection<Long> ids
+            ,@Param("isbn") String isbn
+            ,Pageable pageable);
+
+    @Query("select b from Book b where b.id in :ids" +
+            " and (:isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')))")
+    Slice<Book> findSliceByIdInAndIsbn(@Param("ids") Collection<Long> ids
+            ,@Param("isbn") String isbn
+            ,Pageable pageable);
+
+    interface SearchEntry {
+        Long getId();
+
+        String getTitulo();
+
+        String getAutor();
+    }
 }
@@ -0,0 +1,60 @@
+package com.wallassouza.bibliotecaapi.api.resource.repository;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.DailyLoanStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface DailyLoanStatsRepository extends JpaRepository<DailyLoanStats, LocalDate> {
+
+    /**
+     * Cria a linha do dia, se ainda nao existir, com o numero de ativos do dia anterior mais recente.
+     */
+    @Modifying
+    @Query(value = "insert into daily_loan_stats " +
+            "(stats_day, loans_started, loans_returned, returned_loan_days, active_loans) " +
+            "select cast(:day as date), 0, 0, 0, coalesce((select p.active_loans from daily_loan_stats p " +
+            "where p.stats_day < :day order by p.stats_day desc limit 1), 0) from dual " +
+            "where not exists (select 1 from daily_loan_stats d where d.stats_day = :day)", nativeQuery = true)
+    int createDay(@Param("day") LocalDate day);
+
+    /**
+     * Soma os contadores na linha do dia e corrige os ativos dele e dos dias seguintes.
+     * Os eventos chegam quase sempre no dia corrente, entao so a ultima linha muda.
+     */
+    @Modifying
+    @Query(value = "update daily_loan_stats set " +
+            "loans_started = loans_started + case when stats_day = :day then :started else 0 end, " +
+            "loans_returned = loans_returned + case when stats_day = :day then :returned else 0 end, " +
+            "returned_loan_days = returned_loan_days + case when stats_day = :day then :loanDays else 0 end, " +
+            "active_loans = active_loans + :started - :returned " +
+            "where stats_day >= :day", nativeQuery = true)
+    int add(@Param("day") LocalDate day,
+            @Param("started") long started,
+            @Param("returned") long returned,
+            @Param("loanDays") long loanDays);
+
+    List<DailyLoanStats> findByDayBetweenOrderByDay(LocalDate from, LocalDate to);
+
+    Optional<DailyLoanStats> findFirstByDayLessThanOrderByDayDesc(LocalDate day);
+
+    @Modifying
+    @Query(value = "insert into daily_loan_stats " +
+            "(stats_day, loans_started, loans_returned, returned_loan_days, active_loans) " +
+            "select stats_day, started, returned, loan_days, sum(started - returned) over (order by stats_day) " +
+            "from (select stats_day, sum(started) as started, sum(returned) as returned, " +
+            "sum(loan_days) as loan_days from (" +
+            " select loan_date as stats_day, 1 as started, 0 as returned, 0 as loan_days" +
+            " from loan where loan_date is not null" +
+            " and (return_date is not null or coalesce(returned, false) = false)" +
+            " union all" +
+            " select return_date, 0, 1, coalesce(datediff('DAY', loan_date, return_date), 0)" +
+            " from loan where returned = true and return_date is not null" +
+            ") t group by stats_day) g", nativeQuery = true)
+    int rebuild();
+}
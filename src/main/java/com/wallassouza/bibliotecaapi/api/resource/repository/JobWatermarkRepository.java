@@ -0,0 +1,21 @@
+package com.wallassouza.bibliotecaapi.api.resource.repository;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.JobWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+public interface JobWatermarkRepository extends JpaRepository<JobWatermark, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from JobWatermark w where w.name = :name")
+    Optional<JobWatermark> lockByName(@Param("name") String name);
+
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select w from JobWatermark w where w.name = :name")
+    Optional<JobWatermark> lockSharedByName(@Param("name") String name);
+}
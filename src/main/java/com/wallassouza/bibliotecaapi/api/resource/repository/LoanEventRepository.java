@@ -0,0 +1,59 @@
+package com.wallassouza.bibliotecaapi.api.resource.repository;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.LoanEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface LoanEventRepository extends JpaRepository<LoanEvent, Long> {
+
+    @Query("select e from LoanEvent e where e.dispatchedAt is null and e.deadLetteredAt is null order by e.id")
+    List<LoanEvent> findPending(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update LoanEvent e set e.dispatchedAt = :now, e.lastError = null where e.id in :ids")
+    int markDispatched(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("update LoanEvent e set e.attempts = e.attempts + 1, e.nextAttemptAt = :nextAttemptAt, " +
+            "e.lastError = :error where e.id in :ids")
+    int markFailed(@Param("ids") Collection<Long> ids,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error);
+
+    @Transactional
+    @Modifying
+    @Query("update LoanEvent e set e.attempts = e.attempts + 1, e.deadLetteredAt = :now, " +
+            "e.lastError = :error where e.id in :ids")
+    int markDeadLettered(@Param("ids") Collection<Long> ids,
+                         @Param("now") LocalDateTime now,
+                         @Param("error") String error);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from LoanEvent e where e.id in :ids and e.statsAppliedAt is null order by e.id")
+    List<LoanEvent> lockStatsPending(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update LoanEvent e set e.statsAppliedAt = :now where e.id in :ids")
+    int markStatsApplied(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update LoanEvent e set e.statsAppliedAt = :now where e.statsAppliedAt is null")
+    int markAllStatsApplied(@Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from LoanEvent e where e.dispatchedAt < :before")
+    int deleteDispatchedBefore(@Param("before") LocalDateTime before);
+}
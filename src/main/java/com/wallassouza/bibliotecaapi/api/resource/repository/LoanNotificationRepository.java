@@ -0,0 +1,7 @@
+package com.wallassouza.bibliotecaapi.api.resource.repository;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.LoanNotification;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface LoanNotificationRepository extends JpaRepository<LoanNotification, Long> {
+}
@@ -3,27 +3,166 @@ package com.wallassouza.bibliotecaapi.api.resource.repository;
 import com.wallassouza.bibliotecaapi.api.resource.model.Book;
 import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import java.util.stream.Stream;
 
 public interface LoanRepository extends JpaRepository<Loan,Long> {
-    @Query(value = "select case when (count(l.id)> 0  )" +
-            "then true else false end from Loan l where l.book = :book and " +
-            "(l.returned is null or l.returned is false)")
-    boolean existsByBookAndNotReturned(@Param("book") Book book);
 
-    @Query(value = "select l from Loan l join  l.book as b where b.isbn = :isbn or l.customer =:customer")
-    Page<Loan> findByBookIsbnOrCustomer( @Param("isbn") String isbn
-            ,@Param("customer") String customer
-            ,Pageable pageable );
+    // cada ramo usa o proprio indice; o union tira os emprestimos que casam nos dois filtros
+    String IDS_BY_BOOK_ISBN_OR_CUSTOMER = "select l.id from loan l join book b on b.id = l.id_book where b.isbn = :isbn" +
+            " union select l.id from loan l where l.customer = :customer";
+
+    @Query("select l.id from Loan l where l.customer = :customer")
+    List<Long> findIdsByCustomer(@Param("customer") String customer);
+
+    @Query(value = "select u.id from (" + IDS_BY_BOOK_ISBN_OR_CUSTOMER + ") u order by u.id",
+            countQuery = "select count(*) from (" + IDS_BY_BOOK_ISBN_OR_CUSTOMER + ") u",
+            nativeQuery = true)
+    Page<Number> findIdsByBookIsbnOrCustomer(@Param("isbn") String isbn,
+                                           @Param("customer") String customer,
+                                           Pageable pageable);
+
+    @Query(value = "select u.id from (" + IDS_BY_BOOK_ISBN_OR_CUSTOMER + ") u order by u.id", nativeQuery = true)
+    Slice<Number> findSliceIdsByBookIsbnOrCustomer(@Param("isbn") String isbn,
+                                                 @Param("customer") String customer,
+                                                 Pageable pageable);
+
+    @Query(value = "select u.id from (" +
+            "select l.id from loan l join book b on b.id = l.id_book where b.isbn = :isbn and l.id > :after" +
+            " union select l.id from loan l where l.customer = :customer and l.id > :after" +
+            ") u order by u.id", nativeQuery = true)
+    List<Number> findIdsByBookIsbnOrCustomerAfter(@Param("isbn") String isbn,
+                                                @Param("customer") String customer,
+                                                @Param("after") Long after,
+                                                Pageable pageable);
+
+    // o union so devolve ids em ordem de id; outra ordenacao precisa do "or", que nao usa indice
+    @Query(value = "select l from Loan l join fetch l.book b where b.isbn = :isbn or l.customer = :customer",
+            countQuery = "select count(l) from Loan l join l.book b where b.isbn = :isbn or l.customer = :customer")
+    Page<Loan> findSortedWithBookByBookIsbnOrCustomer(@Param("isbn") String isbn,
+                                                      @Param("customer") String customer,
+                                                      Pageable pageable);
+
+    @Query("select l from Loan l join fetch l.book b where b.isbn = :isbn or l.customer = :customer")
+    Slice<Loan> findSortedSliceWithBookByBookIsbnOrCustomer(@Param("isbn") String isbn,
+                                                            @Param("customer") String customer,
+                                                            Pageable pageable);
+
+    @Query(value = "select l from Loan l join fetch l.book b where b.isbn = :isbn",
+            countQuery = "select count(l) from Loan l join l.book b where b.isbn = :isbn")
+    Page<Loan> findWithBookByBookIsbn(@Param("isbn") String isbn, Pageable pageable);
+
+    @Query(value = "select l from Loan l join fetch l.book where l.customer = :customer",
+            countQuery = "select count(l) from Loan l join l.book where l.customer = :customer")
+    Page<Loan> findWithBookByCustomer(@Param("customer") String customer, Pageable pageable);
+
+    @Query("select l from Loan l join fetch l.book b where b.isbn = :isbn")
+    Slice<Loan> findSliceWithBookByBookIsbn(@Param("isbn") String isbn, Pageable pageable);
 
+    @Query("select l from Loan l join fetch l.book where l.customer = :customer")
+    Slice<Loan> findSliceWithBookByCustomer(@Param("customer") String customer, Pageable pageable);
+
+    @Query("select l from Loan l join fetch l.book where l.id in :ids")
+    List<Loan> findWithBookByIdIn(@Param("ids") Collection<Long> ids, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    default Page<Loan> findByBookIsbnOrCustomer(String isbn, String customer, Pageable pageable) {
+        if (isbn == null && customer != null) {
+            return findWithBookByCustomer(customer, pageable);
+        }
+        if (customer == null && isbn != null) {
+            return findWithBookByBookIsbn(isbn, pageable);
+        }
+        if (!isSortedById(pageable)) {
+            return findSortedWithBookByBookIsbnOrCustomer(isbn, customer, pageable);
+        }
+        Page<Number> ids = findIdsByBookIsbnOrCustomer(isbn, customer,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        return new PageImpl<>(findWithBookInIdOrder(ids.getContent()), pageable, ids.getTotalElements());
+    }
+
+    @Transactional(readOnly = true)
+    default Slice<Loan> findSliceByBookIsbnOrCustomer(String isbn, String customer, Pageable pageable) {
+        if (isbn == null && customer != null) {
+            return findSliceWithBookByCustomer(customer, pageable);
+        }
+        if (customer == null && isbn != null) {
+            return findSliceWithBookByBookIsbn(isbn, pageable);
+        }
+        if (!isSortedById(pageable)) {
+            return findSortedSliceWithBookByBookIsbnOrCustomer(isbn, customer, pageable);
+        }
+        Slice<Number> ids = findSliceIdsByBookIsbnOrCustomer(isbn, customer,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        return new SliceImpl<>(findWithBookInIdOrder(ids.getContent()), pageable, ids.hasNext());
+    }
+
+    @Transactional(readOnly = true)
+    default Slice<Loan> findByBookIsbnOrCustomerAfter(String isbn, String customer, Long after, Pageable pageable) {
+        List<Number> ids = findIdsByBookIsbnOrCustomerAfter(isbn, customer, after,
+                PageRequest.of(0, pageable.getPageSize() + 1));
+        boolean hasNext = ids.size() > pageable.getPageSize();
+        List<Number> pageIds = hasNext ? ids.subList(0, pageable.getPageSize()) : ids;
+        return new SliceImpl<>(findWithBookInIdOrder(pageIds), pageable, hasNext);
+    }
+
+    // ids de consultas nativas chegam como BigInteger
+    private List<Loan> findWithBookInIdOrder(List<Number> ids) {
+        return ids.isEmpty()
+                ? Collections.emptyList()
+                : findWithBookByIdIn(ids.stream().map(Number::longValue).collect(Collectors.toList()),
+                        PageRequest.of(0, ids.size(), Sort.by("id")));
+    }
+
+    private static boolean isSortedById(Pageable pageable) {
+        Sort sort = pageable.getSort();
+        return sort.isUnsorted() || sort.equals(Sort.by("id"));
+    }
+
+    @EntityGraph(attributePaths = "book")
     Page<Loan> findByBook(Book book, Pageable pageable);
 
-    @Query("select l from Loan l where l.loanDate <= :threeDaysAgo and (l.returned is null or l.returned is false) ")
-    List<Loan> findByLoanDateLessThanAndNotReturned(@Param("threeDaysAgo") LocalDate threeDaysAgo);
+    @Query("select l from Loan l where l.dueDate > :from and l.dueDate <= :to" +
+            " and (l.returned is null or l.returned is false) and l.id > :after" +
+            " and not exists (select n.loanId from LoanNotification n where n.loanId = l.id) order by l.id")
+    List<Loan> findNewlyOverdue(@Param("from") LocalDate from
+            ,@Param("to") LocalDate to
+            ,@Param("after") Long after
+            ,Pageable pageable);
+
+    @Query("select min(l.dueDate) from Loan l where l.returned is null or l.returned is false")
+    Optional<LocalDate> findOldestOpenDueDate();
+
+    @Query("select l from Loan l, LoanNotification n where n.loanId = l.id and n.nextReminderOn <= :today" +
+            " and (l.returned is null or l.returned is false) and l.id > :after order by l.id")
+    List<Loan> findRemindersDue(@Param("today") LocalDate today
+            ,@Param("after") Long after
+            ,Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("select l from Loan l join fetch l.book order by l.id")
+    Stream<Loan> streamAll();
 }
@@ -0,0 +1,71 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Totais aproximados das listagens, recontados em segundo plano. A requisicao
+ * nunca espera o count: recebe o ultimo valor conhecido, ou null enquanto o
+ * primeiro count de um filtro ainda nao terminou.
+ */
+@Slf4j
+@Component
+public class ApproximateCountCache {
+
+    private final Cache<String, Total> totals;
+    private final TaskExecutor executor;
+    private final long refreshAfterMillis;
+
+    public ApproximateCountCache(TaskExecutor executor,
+                                 @Value("${application.count-cache.refresh-after-ms:60000}") long refreshAfterMillis,
+                                 @Value("${application.count-cache.maximum-size:10000}") long maximumSize) {
+        this.executor = executor;
+        this.refreshAfterMillis = refreshAfterMillis;
+        this.totals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(Duration.ofMillis(refreshAfterMillis * 10))
+                .build();
+    }
+
+    public Long get(String key, LongSupplier count) {
+        Total total = totals.get(key, k -> new Total());
+        if (total.isStale(refreshAfterMillis) && total.refreshing.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> total.refresh(key, count));
+            } catch (TaskRejectedException ex) {
+                total.refreshing.set(false);
+            }
+        }
+        return total.value;
+    }
+
+    private static final class Total {
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile Long value;
+        private volatile long countedAt;
+
+        boolean isStale(long refreshAfterMillis) {
+            return value == null || System.currentTimeMillis() - countedAt > refreshAfterMillis;
+        }
+
+        void refresh(String key, LongSupplier count) {
+            try {
+                value = count.getAsLong();
+                countedAt = System.currentTimeMillis();
+            } catch (RuntimeException ex) {
+                log.warn("Falha ao contar o total aproximado de {}", key, ex);
+            } finally {
+                refreshing.set(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookImportResultDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface BookImportService {
+
+    String NDJSON = "application/x-ndjson";
+    String CSV = "text/csv";
+
+    BookImportResultDTO importNdjson(InputStream input) throws IOException;
+
+    BookImportResultDTO importCsv(InputStream input) throws IOException;
+}
@@ -0,0 +1,226 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookImportResultDTO;
+import com.wallassouza.bibliotecaapi.api.resource.exception.BusinessException;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.repository.BookRepository;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class BookImportServiceImpl implements BookImportService {
+
+    @Value("${application.import.chunk-size:500}")
+    private int chunkSize;
+
+    private final BookRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Override
+    public BookImportResultDTO importNdjson(InputStream input) throws IOException {
+        BufferedReader reader = reader(input);
+        return importRows(reader, 0, line -> objectMapper.readValue(line, BookDTO.class));
+    }
+
+    @Override
+    public BookImportResultDTO importCsv(InputStream input) throws IOException {
+        BufferedReader reader = reader(input);
+        String header = reader.readLine();
+        if (header == null) {
+            return new BookImportResultDTO();
+        }
+        return importRows(reader, 1, new CsvRowParser(splitCsv(header)));
+    }
+
+    private BufferedReader reader(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    private BookImportResultDTO importRows(BufferedReader reader, long lineNumber, RowParser parser) throws IOException {
+        BookImportResultDTO result = new BookImportResultDTO();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            BookDTO dto;
+            try {
+                dto = parser.parse(line);
+            } catch (IOException | IllegalArgumentException ex) {
+                result.reject(lineNumber, null, "Linha invalida");
+                continue;
+            }
+            Set<ConstraintViolation<BookDTO>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                result.reject(lineNumber, dto.getIsbn(), violations.stream()
+                        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                continue;
+            }
+            chunk.add(new ImportRow(lineNumber, Book.builder()
+                    .titulo(dto.getTitulo())
+                    .autor(dto.getAutor())
+                    .isbn(dto.getIsbn())
+                    .build()));
+            if (chunk.size() >= chunkSize) {
+                persist(chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            persist(chunk, result);
+        }
+        return result;
+    }
+
+    private void persist(List<ImportRow> chunk, BookImportResultDTO result) {
+        List<ImportRow> duplicated = new ArrayList<>();
+        try {
+            int imported = transactionTemplate.execute(status -> {
+                Set<String> isbns = chunk.stream()
+                        .map(row -> row.book.getIsbn())
+                        .collect(Collectors.toSet());
+                Set<String> existing = repository.findExistingIsbns(isbns);
+                Set<String> accepted = new HashSet<>();
+                List<Book> books = new ArrayList<>(chunk.size());
+                for (ImportRow row : chunk) {
+                    String isbn = row.book.getIsbn();
+                    if (existing.contains(isbn) || !accepted.add(isbn)) {
+                        duplicated.add(row);
+                    } else {
+                        books.add(row.book);
+                    }
+                }
+                // saveAllAndFlush passa pela traducao de excecoes do repositorio: a violacao do
+                // indice unico de isbn (insert concorrente) chega como DataAccessException
+                repository.saveAllAndFlush(books);
+                entityManager.clear();
+                return books.size();
+            });
+            result.addImported(imported);
+        } catch (DataAccessException ex) {
+            // o lote inteiro foi desfeito; grava linha a linha para rejeitar so o que conflita
+            entityManager.clear();
+            chunk.stream()
+                    .filter(row -> !duplicated.contains(row))
+                    .forEach(row -> persistRow(row, result));
+        }
+        duplicated.forEach(row -> result.reject(row.line, row.book.getIsbn(), "ISBN já cadastrado"));
+    }
+
+    private void persistRow(ImportRow row, BookImportResultDTO result) {
+        // copia sem o id que o lote desfeito ja tinha atribuido
+        Book book = Book.builder()
+                .titulo(row.book.getTitulo())
+                .autor(row.book.getAutor())
+                .isbn(row.book.getIsbn())
+                .build();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.saveAndFlush(book);
+                entityManager.clear();
+            });
+            result.addImported(1);
+        } catch (DataIntegrityViolationException ex) {
+            result.reject(row.line, row.book.getIsbn(), "ISBN já cadastrado");
+        } catch (DataAccessException ex) {
+            result.reject(row.line, row.book.getIsbn(), "Falha ao gravar o lote");
+        }
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private interface RowParser {
+        BookDTO parse(String line) throws IOException;
+    }
+
+    private static class CsvRowParser implements RowParser {
+
+        private final int titulo;
+        private final int autor;
+        private final int isbn;
+
+        CsvRowParser(List<String> header) {
+            List<String> columns = header.stream()
+                    .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                    .collect(Collectors.toList());
+            this.titulo = columns.indexOf("titulo");
+            this.autor = columns.indexOf("autor");
+            this.isbn = columns.indexOf("isbn");
+            if (titulo < 0 || autor < 0 || isbn < 0) {
+                throw new BusinessException("Cabecalho CSV deve conter titulo, autor e isbn");
+            }
+        }
+
+        @Override
+        public BookDTO parse(String line) {
+            List<String> fields = splitCsv(line);
+            return BookDTO.builder()
+                    .titulo(field(fields, titulo))
+                    .autor(field(fields, autor))
+                    .isbn(field(fields, isbn))
+                    .build();
+        }
+
+        private String field(List<String> fields, int index) {
+            return index < fields.size() ? fields.get(index).trim() : null;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class ImportRow {
+        private final long line;
+        private final Book book;
+    }
+}
@@ -0,0 +1,239 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Inverted trigram index over book titulo and autor, used to resolve
+ * case-insensitive substring searches to candidate ids without scanning
+ * the book table.
+ */
+@Component
+public class BookSearchIndex {
+
+    static final int GRAM = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, Set<Long>> titulos = new HashMap<>();
+    private final Map<String, Set<Long>> autores = new HashMap<>();
+    private final Set<Long> touchedWhileLoading = new HashSet<>();
+    private volatile boolean loading;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Whether the index can narrow this filter by trigrams. Values shorter than
+     * {@link #GRAM} have no grams, so a filter made only of them would scan every entry.
+     */
+    public boolean isSearchable(String titulo, String autor) {
+        return ready && (hasGrams(titulo) || hasGrams(autor));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void load(Stream<Book> books) {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            loading = true;
+            touchedWhileLoading.clear();
+            entries.clear();
+            titulos.clear();
+            autores.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            books.forEach(book -> {
+                lock.writeLock().lock();
+                try {
+                    if (!touchedWhileLoading.contains(book.getId())) {
+                        put(book.getId(), book.getTitulo(), book.getAutor());
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+            ready = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                loading = false;
+                touchedWhileLoading.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public void index(Book book) {
+        if (book.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            touch(book.getId());
+            put(book.getId(), book.getTitulo(), book.getAutor());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            touch(id);
+            Entry old = entries.remove(id);
+            if (old != null) {
+                unlink(titulos, old.titulo, id);
+                unlink(autores, old.autor, id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids, in ascending order, of the books whose titulo and autor
+     * contain the given values ignoring case. Null values match any book.
+     */
+    public NavigableSet<Long> search(String titulo, String autor) {
+        String t = normalize(titulo);
+        String a = normalize(autor);
+        lock.readLock().lock();
+        try {
+            Collection<Long> candidates = entries.keySet();
+            if (t != null && t.length() >= GRAM) {
+                candidates = intersect(titulos, t, candidates);
+            }
+            if (a != null && a.length() >= GRAM) {
+                candidates = intersect(autores, a, candidates);
+            }
+            NavigableSet<Long> result = new TreeSet<>();
+            for (Long id : candidates) {
+                Entry entry = entries.get(id);
+                if (entry != null && contains(entry.titulo, t) && contains(entry.autor, a)) {
+                    result.add(id);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void touch(Long id) {
+        if (loading) {
+            touchedWhileLoading.add(id);
+        }
+    }
+
+    private void put(Long id, String titulo, String autor) {
+        Entry entry = new Entry(normalize(titulo), normalize(autor));
+        Entry old = entries.put(id, entry);
+        if (old != null) {
+            unlink(titulos, old.titulo, id);
+            unlink(autores, old.autor, id);
+        }
+        link(titulos, entry.titulo, id);
+        link(autores, entry.autor, id);
+    }
+
+    private static Collection<Long> intersect(Map<String, Set<Long>> postings, String value, Collection<Long> candidates) {
+        List<Set<Long>> sets = new ArrayList<>();
+        for (String gram : grams(value)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            sets.add(ids);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>();
+        Set<Long> smallest = sets.get(0);
+        Collection<Long> base = smallest.size() <= candidates.size() ? smallest : candidates;
+        for (Long id : base) {
+            if (!candidates.contains(id)) {
+                continue;
+            }
+            boolean all = true;
+            for (Set<Long> ids : sets) {
+                if (ids != base && !ids.contains(id)) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private static void link(Map<String, Set<Long>> postings, String value, Long id) {
+        for (String gram : grams(value)) {
+            postings.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static void unlink(Map<String, Set<Long>> postings, String value, Long id) {
+        for (String gram : grams(value)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> grams(String value) {
+        if (value == null || value.length() < GRAM) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static boolean hasGrams(String value) {
+        return value != null && value.length() >= GRAM;
+    }
+
+    private static boolean contains(String value, String query) {
+        return query == null || (value != null && value.contains(query));
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        private final String titulo;
+        private final String autor;
+
+        private Entry(String titulo, String autor) {
+            this.titulo = titulo;
+            this.autor = autor;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class BookSearchIndexListener {
+
+    private final ObjectProvider<BookSearchIndex> searchIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Book book) {
+        Book snapshot = Book.builder()
+                .id(book.getId())
+                .titulo(book.getTitulo())
+                .autor(book.getAutor())
+                .build();
+        afterCommit(index -> index.index(snapshot));
+    }
+
+    @PostRemove
+    public void onRemove(Book book) {
+        Long id = book.getId();
+        afterCommit(index -> index.remove(id));
+    }
+
+    private void afterCommit(Consumer<BookSearchIndex> action) {
+        BookSearchIndex index = searchIndex.getIfAvailable();
+        if (index == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(index);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.accept(index);
+            }
+        });
+    }
+}
@@ -3,6 +3,7 @@ package com.wallassouza.bibliotecaapi.api.resource.service;
 import com.wallassouza.bibliotecaapi.api.resource.model.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.Optional;
 
@@ -11,11 +12,19 @@ public interface BookService {
 
     Optional<Book> getById(Long id);
 
+    Optional<Long> getVersion(Long id);
+
     void delete(Book book);
 
     Book update(Book book);
 
     Page<Book> find (Book filter, Pageable pageRequest);
 
+    Slice<Book> findSlice(Book filter, Pageable pageRequest);
+
+    Long getApproximateTotal(Book filter);
+
+    Slice<Book> findAfter(Book filter, Long after, int size);
+
     Optional<Book> getBookByIsbn(String s);
 }
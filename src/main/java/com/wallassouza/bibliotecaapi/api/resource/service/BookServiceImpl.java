@@ -3,35 +3,136 @@ package com.wallassouza.bibliotecaapi.api.resource.service;
 import com.wallassouza.bibliotecaapi.api.resource.exception.BusinessException;
 import com.wallassouza.bibliotecaapi.api.resource.model.Book;
 import com.wallassouza.bibliotecaapi.api.resource.repository.BookRepository;
-import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
-@AllArgsConstructor
 public class BookServiceImpl implements BookService {
 
-    private BookRepository repository;
+    public static final String BOOKS_BY_ID = "books-by-id";
+    public static final String BOOKS_BY_ISBN = "books-by-isbn";
+    public static final String BOOKS_JSON = "books-json";
+
+    static final int MAX_INDEXED_IDS = 1000;
+
+    private final BookRepository repository;
+    private final BookSearchIndex searchIndex;
+    private final ApproximateCountCache countCache;
+    private final TaskExecutor taskExecutor;
+    // chamadas internas e de outras threads nao passam pelo proxy de @Transactional
+    private final TransactionTemplate readOnlyTransaction;
+
+    public BookServiceImpl(BookRepository repository,
+                           BookSearchIndex searchIndex,
+                           ApproximateCountCache countCache,
+                           TaskExecutor taskExecutor,
+                           PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.countCache = countCache;
+        this.taskExecutor = taskExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Carrega o indice em segundo plano para nao atrasar a prontidao da aplicacao;
+     * ate terminar, as buscas seguem pelo banco.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleSearchIndexLoad() {
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    loadSearchIndex();
+                } catch (RuntimeException ex) {
+                    log.error("Falha ao carregar o indice de busca; as buscas seguem pelo banco", ex);
+                }
+            });
+        } catch (TaskRejectedException ex) {
+            log.warn("Carga do indice de busca recusada pelo executor; as buscas seguem pelo banco", ex);
+        }
+    }
+
+    public void loadSearchIndex() {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<BookRepository.SearchEntry> entries = repository.streamSearchEntries()) {
+                searchIndex.load(entries.map(entry -> Book.builder()
+                        .id(entry.getId())
+                        .titulo(entry.getTitulo())
+                        .autor(entry.getAutor())
+                        .build()));
+            }
+        });
+    }
 
     @Override
+    @CacheEvict(cacheNames = BOOKS_BY_ISBN, key = "#book.isbn", condition = "#book.isbn != null")
     public Book save(Book book) {
         if(repository.existsByIsbn(book.getIsbn())){
             throw new BusinessException("ISBN já cadastrado");
         }
-        return repository.save(book);
+        try {
+            return repository.save(book);
+        } catch (DataIntegrityViolationException ex) {
+            throw new BusinessException("ISBN já cadastrado");
+        }
     }
 
     @Override
+    @Cacheable(cacheNames = BOOKS_BY_ID, condition = "#id != null", unless = "#result == null")
+    @Transactional(readOnly = true)
     public Optional<Book> getById(Long id) {
         return this.repository.findById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> getVersion(Long id) {
+        return this.repository.findVersionById(id);
+    }
+
+    /**
+     * Remove as entradas antes e depois da gravacao: um getById concorrente que rode
+     * entre a primeira remocao e o commit colocaria o livro antigo de volta no cache.
+     */
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = BOOKS_BY_ID, key = "#book.id",
+                    condition = "#book?.id != null", beforeInvocation = true),
+            @CacheEvict(cacheNames = BOOKS_BY_ISBN, key = "#book.isbn",
+                    condition = "#book?.isbn != null", beforeInvocation = true),
+            @CacheEvict(cacheNames = BOOKS_BY_ID, key = "#book.id", condition = "#book?.id != null"),
+            @CacheEvict(cacheNames = BOOKS_BY_ISBN, key = "#book.isbn", condition = "#book?.isbn != null"),
+            @CacheEvict(cacheNames = BOOKS_JSON, key = "#book.id", condition = "#book?.id != null")
+    })
     public void delete(Book book) {
         if(book == null || book.getId() == null){
             throw new IllegalArgumentException("Book id cant be null.");
@@ -39,7 +140,19 @@ public class BookServiceImpl implements BookService {
             this.repository.delete(book);
     }
 
+    /**
+     * Mesma remocao dupla do delete: a de depois da gravacao descarta o livro antigo
+     * que uma leitura concorrente tenha posto no cache antes do commit.
+     */
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = BOOKS_BY_ID, key = "#book.id",
+                    condition = "#book?.id != null", beforeInvocation = true),
+            @CacheEvict(cacheNames = BOOKS_BY_ISBN, allEntries = true, beforeInvocation = true),
+            @CacheEvict(cacheNames = BOOKS_BY_ID, key = "#book.id", condition = "#book?.id != null"),
+            @CacheEvict(cacheNames = BOOKS_BY_ISBN, allEntries = true),
+            @CacheEvict(cacheNames = BOOKS_JSON, key = "#book.id", condition = "#book?.id != null")
+    })
     public Book update(Book book) {
         if(book == null || book.getId() == null){
             throw new IllegalArgumentException("Book id cant be null.");
@@ -48,7 +161,27 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Book> find(Book filter, Pageable pageRequest) {
+        if (useSearchIndex(filter)) {
+            NavigableSet<Long> ids = searchIndex.search(filter.getTitulo(), filter.getAutor());
+            if (ids.isEmpty()) {
+                return Page.empty(pageRequest);
+            }
+            if (filter.getIsbn() == null && pageRequest.getSort().isUnsorted()) {
+                List<Long> pageIds = ids.stream()
+                        .skip(pageRequest.getOffset())
+                        .limit(pageRequest.getPageSize())
+                        .collect(Collectors.toList());
+                List<Book> books = pageIds.isEmpty()
+                        ? Collections.emptyList()
+                        : repository.findByIdInOrderById(pageIds);
+                return new PageImpl<>(books, pageRequest, ids.size());
+            }
+            if (ids.size() <= MAX_INDEXED_IDS) {
+                return repository.findByIdInAndIsbn(ids, filter.getIsbn(), pageRequest);
+            }
+        }
         Example<Book> example = Example.of(filter,
                 ExampleMatcher.matching()
                         .withIgnoreCase()
@@ -59,6 +192,67 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> findSlice(Book filter, Pageable pageRequest) {
+        if (useSearchIndex(filter)) {
+            NavigableSet<Long> ids = searchIndex.search(filter.getTitulo(), filter.getAutor());
+            if (ids.isEmpty()) {
+                return new SliceImpl<>(Collections.emptyList(), pageRequest, false);
+            }
+            if (filter.getIsbn() == null && pageRequest.getSort().isUnsorted()) {
+                List<Long> pageIds = ids.stream()
+                        .skip(pageRequest.getOffset())
+                        .limit(pageRequest.getPageSize())
+                        .collect(Collectors.toList());
+                List<Book> books = pageIds.isEmpty()
+                        ? Collections.emptyList()
+                        : repository.findByIdInOrderById(pageIds);
+                boolean hasNext = ids.size() > pageRequest.getOffset() + pageRequest.getPageSize();
+                return new SliceImpl<>(books, pageRequest, hasNext);
+            }
+            if (ids.size() <= MAX_INDEXED_IDS) {
+                return repository.findSliceByIdInAndIsbn(ids, filter.getIsbn(), pageRequest);
+            }
+        }
+        return repository.findSliceByFilter(filter.getTitulo(), filter.getAutor(), filter.getIsbn(), pageRequest);
+    }
+
+    @Override
+    public Long getApproximateTotal(Book filter) {
+        String key = String.join("|", "book",
+                String.valueOf(filter.getTitulo()), String.valueOf(filter.getAutor()), String.valueOf(filter.getIsbn()))
+                .toLowerCase();
+        return countCache.get(key, () -> readOnlyTransaction.execute(status ->
+                find(filter, PageRequest.of(0, 1)).getTotalElements()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> findAfter(Book filter, Long after, int size) {
+        if (useSearchIndex(filter) && filter.getIsbn() == null) {
+            List<Long> ids = searchIndex.search(filter.getTitulo(), filter.getAutor())
+                    .tailSet(after, false)
+                    .stream()
+                    .limit(size + 1L)
+                    .collect(Collectors.toList());
+            boolean hasNext = ids.size() > size;
+            List<Long> pageIds = hasNext ? ids.subList(0, size) : ids;
+            List<Book> books = pageIds.isEmpty()
+                    ? Collections.emptyList()
+                    : repository.findByIdInOrderById(pageIds);
+            return new SliceImpl<>(books, PageRequest.of(0, size), hasNext);
+        }
+        return repository.findByFilterAfter(
+                filter.getTitulo(), filter.getAutor(), filter.getIsbn(), after, PageRequest.of(0, size));
+    }
+
+    private boolean useSearchIndex(Book filter) {
+        return searchIndex.isSearchable(filter.getTitulo(), filter.getAutor());
+    }
+
+    @Override
+    @Cacheable(cacheNames = BOOKS_BY_ISBN, condition = "#isbn != null", unless = "#result == null")
+    @Transactional(readOnly = true)
     public Optional<Book> getBookByIsbn(String isbn) {
         return repository.findByIsbn(isbn);
     }
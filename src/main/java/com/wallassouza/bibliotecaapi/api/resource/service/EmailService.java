@@ -4,4 +4,12 @@ import java.util.List;
 
 public interface EmailService {
     void sendMail(String message, List<String> mailsList);
+
+    void sendMail(String message, String recipient);
+
+    /**
+     * Envia uma mensagem individual para cada destinatario reaproveitando as
+     * conexoes do pool. Retorna os destinatarios que falharam.
+     */
+    List<String> sendBulk(String message, List<String> recipients);
 }
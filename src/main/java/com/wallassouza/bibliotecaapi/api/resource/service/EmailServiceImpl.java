@@ -1,13 +1,22 @@
 package com.wallassouza.bibliotecaapi.api.resource.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailPreparationException;
 import org.springframework.stereotype.Service;
 
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
@@ -15,19 +24,50 @@ public class EmailServiceImpl implements EmailService {
     @Value("${application.mail.default-remetente}")
     private String remetente;
 
-    private final JavaMailSender mailSender;
+    private final SmtpTransportPool transportPool;
 
     @Override
     public void sendMail(String message, List<String> mailsList) {
         String[] mails = mailsList.toArray(new String[mailsList.size()]);
+        transportPool.send(createMessage(message, mails));
+    }
 
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setFrom(remetente);
-        mailMessage.setSubject("Livro com emprestimo atrasado");
-        mailMessage.setText(message);
-        mailMessage.setTo(mails);
+    @Override
+    public void sendMail(String message, String recipient) {
+        transportPool.send(createMessage(message, recipient));
+    }
 
-        mailSender.send(mailMessage);
+    @Override
+    public List<String> sendBulk(String message, List<String> recipients) {
+        List<String> failed = new ArrayList<>();
+        List<MimeMessage> batch = new ArrayList<>(recipients.size());
+        Map<MimeMessage, String> recipientByMessage = new IdentityHashMap<>();
+        for (String recipient : recipients) {
+            try {
+                MimeMessage mailMessage = createMessage(message, recipient);
+                batch.add(mailMessage);
+                recipientByMessage.put(mailMessage, recipient);
+            } catch (MailException ex) {
+                log.warn("Email invalido: {}", recipient, ex);
+                failed.add(recipient);
+            }
+        }
+        transportPool.sendAll(batch).forEach(mailMessage -> failed.add(recipientByMessage.get(mailMessage)));
+        return failed;
+    }
 
+    private MimeMessage createMessage(String message, String... recipients) {
+        try {
+            MimeMessage mailMessage = new MimeMessage(transportPool.getSession());
+            mailMessage.setFrom(new InternetAddress(remetente));
+            mailMessage.setSubject("Livro com emprestimo atrasado");
+            mailMessage.setText(message);
+            for (String recipient : recipients) {
+                mailMessage.addRecipient(Message.RecipientType.TO, new InternetAddress(recipient));
+            }
+            return mailMessage;
+        } catch (MessagingException ex) {
+            throw new MailPreparationException("Email invalido", ex);
+        }
     }
 }
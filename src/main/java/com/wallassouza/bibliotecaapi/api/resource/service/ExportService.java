@@ -0,0 +1,13 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportService {
+
+    enum Format { CSV, NDJSON }
+
+    void exportBooks(OutputStream output, Format format) throws IOException;
+
+    void exportLoans(OutputStream output, Format format) throws IOException;
+}
@@ -0,0 +1,108 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.BookMapper;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.LoanMapper;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.repository.BookRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class ExportServiceImpl implements ExportService {
+
+    static final int CLEAR_INTERVAL = 1000;
+
+    private final BookRepository bookRepository;
+    private final LoanRepository loanRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    // mapeadores simples: a exportacao passa por todos os livros e nao deve encher o cache books-json
+    private final BookMapper bookMapper = new BookMapper();
+    private final LoanMapper loanMapper = new LoanMapper(bookMapper);
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBooks(OutputStream output, Format format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            if (format == Format.CSV) {
+                writer.write("id,titulo,autor,isbn\n");
+                write(books.iterator(), book -> writer.write(csv(book.getId(), book.getTitulo(),
+                        book.getAutor(), book.getIsbn())));
+            } else {
+                SequenceWriter json = ndjson(writer);
+                write(books.iterator(), book -> json.write(bookMapper.toDto(book)));
+                json.close();
+            }
+        }
+        writer.flush();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportLoans(OutputStream output, Format format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        try (Stream<Loan> loans = loanRepository.streamAll()) {
+            if (format == Format.CSV) {
+                writer.write("id,isbn,customer,email,loanDate,returned\n");
+                write(loans.iterator(), loan -> writer.write(csv(loan.getId(), loan.getBook().getIsbn(),
+                        loan.getCustomer(), loan.getEmail(), loan.getLoanDate(), loan.getReturned())));
+            } else {
+                SequenceWriter json = ndjson(writer);
+                write(loans.iterator(), loan -> json.write(loanMapper.toDto(loan)));
+                json.close();
+            }
+        }
+        writer.flush();
+    }
+
+    private SequenceWriter ndjson(Writer writer) throws IOException {
+        return objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValues(writer);
+    }
+
+    private <T> void write(Iterator<T> rows, RowWriter<T> rowWriter) throws IOException {
+        int count = 0;
+        while (rows.hasNext()) {
+            rowWriter.write(rows.next());
+            if (++count % CLEAR_INTERVAL == 0) {
+                entityManager.clear();
+            }
+        }
+    }
+
+    static String csv(Object... values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String value = values[i] == null ? "" : values[i].toString();
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        return line.append('\n').toString();
+    }
+
+    private interface RowWriter<T> {
+        void write(T row) throws IOException;
+    }
+}
@@ -0,0 +1,15 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.LoanEvent;
+
+import java.util.List;
+
+/**
+ * Recebe os eventos de emprestimo gravados no outbox. A entrega e "pelo menos
+ * uma vez": se algum consumidor falhar o lote inteiro e reenviado a todos, entao
+ * a implementacao deve ser idempotente (por exemplo usando o id do evento).
+ */
+public interface LoanEventConsumer {
+
+    void accept(List<LoanEvent> events);
+}
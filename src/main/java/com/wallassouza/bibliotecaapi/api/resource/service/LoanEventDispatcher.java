@@ -0,0 +1,93 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.LoanEvent;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class LoanEventDispatcher {
+
+    private final LoanEventRepository eventRepository;
+    private final List<LoanEventConsumer> consumers;
+    private final int batchSize;
+    private final long retryBackoffMs;
+    private final int maxAttempts;
+    private final int retentionDays;
+
+    public LoanEventDispatcher(LoanEventRepository eventRepository,
+                               List<LoanEventConsumer> consumers,
+                               @Value("${application.outbox.batch-size}") int batchSize,
+                               @Value("${application.outbox.retry-backoff-ms}") long retryBackoffMs,
+                               @Value("${application.outbox.max-attempts}") int maxAttempts,
+                               @Value("${application.outbox.retention-days}") int retentionDays) {
+        this.eventRepository = eventRepository;
+        this.consumers = consumers;
+        this.batchSize = batchSize;
+        this.retryBackoffMs = retryBackoffMs;
+        this.maxAttempts = maxAttempts;
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(fixedDelayString = "${application.outbox.poll-delay-ms}")
+    public void drain() {
+        while (dispatchBatch() > 0) {
+            // continua enquanto houver eventos pendentes entregues
+        }
+    }
+
+    @Scheduled(cron = "${application.outbox.purge-cron}")
+    public int purgeDispatched() {
+        return eventRepository.deleteDispatchedBefore(LocalDateTime.now().minusDays(retentionDays));
+    }
+
+    /**
+     * Entrega o proximo lote pendente em ordem de id. Quando o lote falha ele
+     * fica na cabeca da fila ate o proximo horario de tentativa, assim um evento
+     * posterior nunca e entregue antes de um anterior. Eventos de um lote que
+     * falhou sao reenviados um a um para isolar o que falha; esse vai para a
+     * fila de mortos (dead_lettered_at) depois de max-attempts tentativas.
+     */
+    public int dispatchBatch() {
+        List<LoanEvent> pending = eventRepository.findPending(PageRequest.of(0, batchSize));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LoanEvent head = pending.get(0);
+        if (head.getNextAttemptAt() != null && head.getNextAttemptAt().isAfter(now)) {
+            return 0;
+        }
+        int attempts = head.getAttempts() == null ? 1 : head.getAttempts() + 1;
+        List<LoanEvent> batch = attempts > 1 ? pending.subList(0, 1) : pending;
+
+        List<Long> ids = batch.stream().map(LoanEvent::getId).collect(Collectors.toList());
+        try {
+            consumers.forEach(consumer -> consumer.accept(batch));
+        } catch (RuntimeException ex) {
+            String error = abbreviate(String.valueOf(ex.getMessage()));
+            if (batch.size() == 1 && attempts >= maxAttempts) {
+                log.error("Evento de emprestimo {} descartado apos {} tentativas", head.getId(), attempts, ex);
+                eventRepository.markDeadLettered(ids, now, error);
+                return 1;
+            }
+            log.warn("Falha ao entregar {} eventos de emprestimo (tentativa {})", ids.size(), attempts, ex);
+            eventRepository.markFailed(ids, now.plusNanos(retryBackoffMs * Math.min(attempts, 10) * 1_000_000), error);
+            return 0;
+        }
+        eventRepository.markDispatched(ids, now);
+        return batch.size();
+    }
+
+    private static String abbreviate(String message) {
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
@@ -0,0 +1,37 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wallassouza.bibliotecaapi.api.resource.model.LoanEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Conta os eventos por tipo. Um lote que falha em outro consumidor volta inteiro,
+ * entao os ids ja contados ficam guardados e um reenvio nao conta de novo. Os
+ * contadores vivem so na memoria, assim como os ids: depois de reiniciar os dois
+ * recomecam juntos.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoanEventMetricsConsumer implements LoanEventConsumer {
+
+    static final int MAX_REMEMBERED = 100_000;
+
+    private final MeterRegistry registry;
+    private final Cache<Long, Boolean> counted = Caffeine.newBuilder()
+            .maximumSize(MAX_REMEMBERED)
+            .build();
+
+    @Override
+    public void accept(List<LoanEvent> events) {
+        for (LoanEvent event : events) {
+            if (counted.asMap().putIfAbsent(event.getId(), Boolean.TRUE) == null) {
+                registry.counter("loan.events", "type", event.getType().name()).increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface LoanNotificationService {
+
+    LocalDate getWatermark();
+
+    void advanceWatermark(LocalDate processedUntil);
+
+    List<Loan> findNewlyOverdue(LocalDate from, LocalDate to, Long after, int size);
+
+    List<Loan> findRemindersDue(LocalDate today, Long after, int size);
+
+    void registerSent(Collection<Long> loanIds);
+
+    void registerFailed(Collection<Long> loanIds);
+}
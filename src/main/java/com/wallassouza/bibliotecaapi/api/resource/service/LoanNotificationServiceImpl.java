@@ -0,0 +1,114 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.JobWatermark;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.model.LoanNotification;
+import com.wallassouza.bibliotecaapi.api.resource.repository.JobWatermarkRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanNotificationRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+
+@Service
+@RequiredArgsConstructor
+public class LoanNotificationServiceImpl implements LoanNotificationService {
+
+    public static final String LATE_LOANS_WATERMARK = "late-loans";
+
+    @Value("${application.mail.lateloans.reminder-interval-days}")
+    private int reminderIntervalDays;
+
+    @Value("${application.mail.lateloans.max-notifications}")
+    private int maxNotifications;
+
+    @Value("${application.mail.lateloans.max-failures}")
+    private int maxFailures;
+
+    private final LoanRepository loanRepository;
+    private final LoanNotificationRepository notificationRepository;
+    private final JobWatermarkRepository watermarkRepository;
+
+    /**
+     * Sem marca d'agua (primeira execucao) comeca antes do vencimento mais antigo ainda
+     * em aberto, para avisar todo emprestimo atrasado como fazia o job sem marca d'agua.
+     */
+    @Override
+    public LocalDate getWatermark() {
+        return watermarkRepository.findById(LATE_LOANS_WATERMARK)
+                .map(JobWatermark::getProcessedUntil)
+                .orElseGet(() -> loanRepository.findOldestOpenDueDate()
+                        .map(dueDate -> dueDate.minusDays(1))
+                        .orElseGet(LocalDate::now));
+    }
+
+    @Override
+    @Transactional
+    public void advanceWatermark(LocalDate processedUntil) {
+        watermarkRepository.save(new JobWatermark(LATE_LOANS_WATERMARK, processedUntil));
+    }
+
+    @Override
+    public List<Loan> findNewlyOverdue(LocalDate from, LocalDate to, Long after, int size) {
+        return loanRepository.findNewlyOverdue(from, to, after, PageRequest.of(0, size));
+    }
+
+    @Override
+    public List<Loan> findRemindersDue(LocalDate today, Long after, int size) {
+        return loanRepository.findRemindersDue(today, after, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional
+    public void registerSent(Collection<Long> loanIds) {
+        LocalDate today = LocalDate.now();
+        update(loanIds, notification -> {
+            notification.setLastSentOn(today);
+            notification.setSentCount(notification.getSentCount() + 1);
+            notification.setFailedCount(0);
+            notification.setNextReminderOn(notification.getSentCount() < maxNotifications
+                    ? today.plusDays(reminderIntervalDays)
+                    : null);
+        });
+    }
+
+    // Falhas voltam no dia seguinte pela fila de lembretes, ja que a marca d'agua avanca,
+    // ate max-failures falhas seguidas; depois disso o aviso fica marcado como falho.
+    @Override
+    @Transactional
+    public void registerFailed(Collection<Long> loanIds) {
+        LocalDate today = LocalDate.now();
+        update(loanIds, notification -> {
+            notification.setFailedCount(notification.getFailedCount() + 1);
+            if (notification.getFailedCount() < maxFailures) {
+                notification.setNextReminderOn(today.plusDays(1));
+            } else {
+                notification.setNextReminderOn(null);
+                notification.setFailedOn(today);
+            }
+        });
+    }
+
+    private void update(Collection<Long> loanIds, Consumer<LoanNotification> change) {
+        if (loanIds.isEmpty()) {
+            return;
+        }
+        Map<Long, LoanNotification> notifications = new HashMap<>();
+        notificationRepository.findAllById(loanIds)
+                .forEach(notification -> notifications.put(notification.getLoanId(), notification));
+        List<LoanNotification> changed = new ArrayList<>(loanIds.size());
+        for (Long loanId : loanIds) {
+            LoanNotification notification = notifications.getOrDefault(loanId,
+                    LoanNotification.builder().loanId(loanId).sentCount(0).failedCount(0).build());
+            change.accept(notification);
+            changed.add(notification);
+        }
+        notificationRepository.saveAll(changed);
+    }
+}
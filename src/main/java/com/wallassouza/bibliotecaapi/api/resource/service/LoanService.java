@@ -1,25 +1,40 @@
 package com.wallassouza.bibliotecaapi.api.resource.service;
 
 import com.wallassouza.bibliotecaapi.api.resource.controller.BookController;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanBatchResultDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanDTO;
 import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanFilterDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanReturnDTO;
 import com.wallassouza.bibliotecaapi.api.resource.model.Book;
 import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface LoanService {
+    int LOAN_DAYS = 4;
+    int MAX_BATCH_SIZE = 500;
+
     Loan save(Loan loan);
 
     Optional<Loan> getById(Long id);
 
-    Loan update(Loan loan);
+    Optional<Loan> update(Long id, Boolean returned);
+
+    List<LoanBatchResultDTO> saveAll(List<LoanDTO> loans);
+
+    List<LoanBatchResultDTO> returnAll(List<LoanReturnDTO> returns);
 
     Page<Loan> find(LoanFilterDTO filterDTO, Pageable pageable);
 
-    Page<Loan> getLoansByBook(Book book, Pageable pageable);
+    Slice<Loan> findSlice(LoanFilterDTO filterDTO, Pageable pageable);
 
-    List<Loan> getAllLateLoans();
+    Long getApproximateTotal(LoanFilterDTO filterDTO);
+
+    Slice<Loan> findAfter(LoanFilterDTO filterDTO, Long after, int size);
+
+    Page<Loan> getLoansByBook(Book book, Pageable pageable);
 }
@@ -1,57 +1,231 @@
 package com.wallassouza.bibliotecaapi.api.resource.service;
 
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanBatchResultDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanDTO;
 import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanFilterDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanReturnDTO;
 import com.wallassouza.bibliotecaapi.api.resource.exception.BusinessException;
+import com.wallassouza.bibliotecaapi.api.resource.model.ActiveLoan;
 import com.wallassouza.bibliotecaapi.api.resource.model.Book;
 import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.model.LoanEvent;
+import com.wallassouza.bibliotecaapi.api.resource.repository.ActiveLoanRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.BookRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanEventRepository;
 import com.wallassouza.bibliotecaapi.api.resource.repository.LoanRepository;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 public class LoanServiceImpl implements LoanService{
 
     private LoanRepository loanRepository;
+    private ActiveLoanRepository activeLoanRepository;
+    private BookRepository bookRepository;
+    private LoanEventRepository eventRepository;
+    private ApproximateCountCache countCache;
 
     @Override
+    @Transactional
     public Loan save(Loan loan) {
-        if(loanRepository.existsByBookAndNotReturned(loan.getBook())){
+        if (loan.getDueDate() == null && loan.getLoanDate() != null) {
+            loan.setDueDate(loan.getLoanDate().plusDays(LOAN_DAYS));
+        }
+        // a chave primaria de active_loan so decide quando duas transacoes gravam a marca ao mesmo tempo
+        try {
+            if (activeLoanRepository.acquire(loan.getBook().getId()) == 0) {
+                throw new BusinessException("Book já emprestado");
+            }
+        } catch (DataIntegrityViolationException ex) {
             throw new BusinessException("Book já emprestado");
         }
-        return loanRepository.save(loan);
+        Loan saved = loanRepository.save(loan);
+        eventRepository.save(LoanEvent.of(LoanEvent.Type.LOAN_CREATED, saved));
+        return saved;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Loan> getById(Long id) {
         return loanRepository.findById(id);
     }
 
+    /**
+     * Carrega o emprestimo e decide pelo estado gravado antes de alterar a entidade:
+     * com open-session-in-view, uma alteracao feita antes na entidade gerenciada
+     * seria gravada pelo flush automatico e pareceria o estado anterior.
+     */
+    @Override
+    @Transactional
+    public Optional<Loan> update(Long id, Boolean returned) {
+        Optional<Loan> found = loanRepository.findById(id);
+        found.ifPresent(loan -> applyReturned(loan, returned));
+        return found;
+    }
+
+    private void applyReturned(Loan loan, Boolean returned) {
+        // emprestimos devolvidos antes da V6 nao tem data de devolucao, entao vale a flag gravada
+        boolean wasReturned = Boolean.TRUE.equals(loan.getReturned());
+        // um emprestimo devolvido nao volta a ficar ativo: o livro pode ja estar com outro cliente
+        if (wasReturned && !Boolean.TRUE.equals(returned)) {
+            throw new BusinessException("Emprestimo já devolvido");
+        }
+        loan.setReturned(returned);
+        if (wasReturned || !Boolean.TRUE.equals(returned)) {
+            return;
+        }
+        activeLoanRepository.release(loan.getBook().getId());
+        loan.setReturnDate(LocalDate.now());
+        eventRepository.save(LoanEvent.of(LoanEvent.Type.LOAN_RETURNED, loan));
+    }
+
+    @Override
+    @Transactional
+    public List<LoanBatchResultDTO> saveAll(List<LoanDTO> loans) {
+        Set<String> isbns = loans.stream()
+                .map(LoanDTO::getIsbn)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Book> books = isbns.isEmpty() ? Collections.emptyMap() : bookRepository.findByIsbnIn(isbns)
+                .stream()
+                .collect(Collectors.toMap(Book::getIsbn, Function.identity()));
+        Set<Long> loaned = activeLoanRepository.findAllById(books.values().stream()
+                        .map(Book::getId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .map(ActiveLoan::getBookId)
+                .collect(Collectors.toSet());
+
+        List<LoanBatchResultDTO> results = new ArrayList<>(loans.size());
+        List<Loan> entities = new ArrayList<>();
+        List<Long> markers = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < loans.size(); i++) {
+            LoanDTO dto = loans.get(i);
+            Book book = books.get(dto.getIsbn());
+            if (book == null) {
+                results.add(LoanBatchResultDTO.error(i, null, dto.getIsbn(), "Book not found for passed isbn"));
+            } else if (!loaned.add(book.getId())) {
+                results.add(LoanBatchResultDTO.error(i, null, dto.getIsbn(), "Book já emprestado"));
+            } else {
+                entities.add(Loan.builder()
+                        .book(book)
+                        .customer(dto.getCustomer())
+                        .email(dto.getEmail())
+                        .loanDate(today)
+                        .dueDate(today.plusDays(LOAN_DAYS))
+                        .build());
+                markers.add(book.getId());
+                results.add(null);
+            }
+        }
+
+        try {
+            if (!markers.isEmpty() && activeLoanRepository.acquireAll(markers) != markers.size()) {
+                throw new BusinessException("Book já emprestado");
+            }
+        } catch (DataIntegrityViolationException ex) {
+            throw new BusinessException("Book já emprestado");
+        }
+        List<Loan> saved = loanRepository.saveAll(entities);
+        eventRepository.saveAll(saved.stream()
+                .map(loan -> LoanEvent.of(LoanEvent.Type.LOAN_CREATED, loan))
+                .collect(Collectors.toList()));
+        Iterator<Loan> created = saved.iterator();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                Loan loan = created.next();
+                results.set(i, LoanBatchResultDTO.ok(i, loan.getId(), loan.getBook().getIsbn()));
+            }
+        }
+        return results;
+    }
+
     @Override
-    public Loan update(Loan loan) {
-        return loanRepository.save(loan);
+    @Transactional
+    public List<LoanBatchResultDTO> returnAll(List<LoanReturnDTO> returns) {
+        Set<Long> ids = returns.stream()
+                .map(LoanReturnDTO::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Loan> loans = ids.isEmpty() ? Collections.emptyMap() : loanRepository.findAllById(ids)
+                .stream()
+                .collect(Collectors.toMap(Loan::getId, Function.identity()));
+
+        List<LoanBatchResultDTO> results = new ArrayList<>(returns.size());
+        Set<Long> released = new HashSet<>();
+        List<LoanEvent> events = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < returns.size(); i++) {
+            LoanReturnDTO dto = returns.get(i);
+            Loan loan = loans.get(dto.getId());
+            if (loan == null) {
+                results.add(LoanBatchResultDTO.error(i, dto.getId(), null, "Loan not found"));
+                continue;
+            }
+            boolean wasReturned = Boolean.TRUE.equals(loan.getReturned());
+            if (wasReturned && !Boolean.TRUE.equals(dto.getReturned())) {
+                results.add(LoanBatchResultDTO.error(i, loan.getId(), null, "Emprestimo já devolvido"));
+                continue;
+            }
+            loan.setReturned(dto.getReturned());
+            if (!wasReturned && Boolean.TRUE.equals(dto.getReturned())) {
+                released.add(loan.getBook().getId());
+                loan.setReturnDate(today);
+                events.add(LoanEvent.of(LoanEvent.Type.LOAN_RETURNED, loan));
+            }
+            results.add(LoanBatchResultDTO.ok(i, loan.getId(), null));
+        }
+        if (!released.isEmpty()) {
+            activeLoanRepository.releaseAll(released);
+        }
+        eventRepository.saveAll(events);
+        return results;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Loan> find(LoanFilterDTO filterDTO, Pageable pageable) {
         return loanRepository.findByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(),pageable );
     }
 
     @Override
-    public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
-        return loanRepository.findByBook(book,pageable);
+    @Transactional(readOnly = true)
+    public Slice<Loan> findSlice(LoanFilterDTO filterDTO, Pageable pageable) {
+        return loanRepository.findSliceByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(), pageable);
     }
 
     @Override
-    public List<Loan> getAllLateLoans() {
-        final Integer loanDays = 4;
-        LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
-        return loanRepository.findByLoanDateLessThanAndNotReturned(threeDaysAgo);
+    public Long getApproximateTotal(LoanFilterDTO filterDTO) {
+        String key = String.join("|", "loan",
+                String.valueOf(filterDTO.getIsbn()), String.valueOf(filterDTO.getCustomer()));
+        return countCache.get(key, () -> loanRepository
+                .findByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(), PageRequest.of(0, 1))
+                .getTotalElements());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Loan> findAfter(LoanFilterDTO filterDTO, Long after, int size) {
+        return loanRepository.findByBookIsbnOrCustomerAfter(
+                filterDTO.getIsbn(), filterDTO.getCustomer(), after, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
+        return loanRepository.findByBook(book,pageable);
     }
 }
@@ -0,0 +1,23 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.LoanEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Leva os eventos do outbox para as tabelas de estatistica, fora da transacao
+ * que grava o emprestimo.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoanStatisticsConsumer implements LoanEventConsumer {
+
+    private final LoanStatisticsService statisticsService;
+
+    @Override
+    public void accept(List<LoanEvent> events) {
+        statisticsService.record(events);
+    }
+}
@@ -0,0 +1,23 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookLoanCountDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.DailyLoansDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanDurationDTO;
+import com.wallassouza.bibliotecaapi.api.resource.model.LoanEvent;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface LoanStatisticsService {
+    int MAX_DAYS = 366;
+
+    void record(List<LoanEvent> events);
+
+    List<BookLoanCountDTO> getMostBorrowed(int limit);
+
+    List<DailyLoansDTO> getDailyLoans(LocalDate from, LocalDate to);
+
+    LoanDurationDTO getLoanDuration(LocalDate from, LocalDate to);
+
+    void rebuild();
+}
@@ -0,0 +1,179 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookLoanCountDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.DailyLoansDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanDurationDTO;
+import com.wallassouza.bibliotecaapi.api.resource.model.DailyLoanStats;
+import com.wallassouza.bibliotecaapi.api.resource.model.JobWatermark;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.model.LoanEvent;
+import com.wallassouza.bibliotecaapi.api.resource.repository.BookLoanStatsRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.DailyLoanStatsRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.JobWatermarkRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanEventRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Estatisticas de emprestimo mantidas em tabelas agregadas, atualizadas pelo
+ * consumidor do outbox (LoanStatisticsConsumer) e nao na transacao que grava o
+ * emprestimo. As leituras nunca varrem a tabela loan; so o rebuild recalcula
+ * tudo a partir dela.
+ */
+@Service
+@RequiredArgsConstructor
+public class LoanStatisticsServiceImpl implements LoanStatisticsService {
+
+    static final String STATISTICS_LOCK = "loan-statistics";
+
+    private final BookLoanStatsRepository bookStatsRepository;
+    private final DailyLoanStatsRepository dailyStatsRepository;
+    private final JobWatermarkRepository watermarkRepository;
+    private final LoanEventRepository eventRepository;
+    private final LoanRepository loanRepository;
+
+    /**
+     * Aplica um lote de eventos com numero fixo de comandos por livro e por dia. Os
+     * eventos ja aplicados (stats_applied_at) sao ignorados, entao um lote reenviado
+     * pelo dispatcher nao conta duas vezes; a marca e gravada na mesma transacao.
+     */
+    @Override
+    @Transactional
+    public void record(List<LoanEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        lockShared();
+        List<LoanEvent> pending = eventRepository.lockStatsPending(events.stream()
+                .map(LoanEvent::getId)
+                .collect(Collectors.toList()));
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, Loan> loans = loanRepository.findAllById(pending.stream()
+                        .map(LoanEvent::getLoanId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Loan::getId, Function.identity()));
+
+        Map<Long, Long> loansByBook = new TreeMap<>();
+        Map<LocalDate, long[]> byDay = new TreeMap<>();
+        for (LoanEvent event : pending) {
+            Loan loan = loans.get(event.getLoanId());
+            if (loan == null) {
+                continue;
+            }
+            if (event.getType() == LoanEvent.Type.LOAN_CREATED) {
+                if (event.getBookId() != null) {
+                    loansByBook.merge(event.getBookId(), 1L, Long::sum);
+                }
+                if (loan.getLoanDate() != null) {
+                    byDay.computeIfAbsent(loan.getLoanDate(), day -> new long[3])[0]++;
+                }
+            } else if (loan.getReturnDate() != null) {
+                long[] counters = byDay.computeIfAbsent(loan.getReturnDate(), day -> new long[3]);
+                counters[1]++;
+                counters[2] += loanDays(loan);
+            }
+        }
+        // um livro aparece mais de uma vez no lote so se foi devolvido e emprestado de novo
+        loansByBook.entrySet().stream()
+                .collect(Collectors.groupingBy(Map.Entry::getValue, TreeMap::new,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())))
+                .forEach((count, bookIds) -> bookStatsRepository.addAll(bookIds, count));
+        byDay.forEach((day, counters) -> {
+            dailyStatsRepository.createDay(day);
+            dailyStatsRepository.add(day, counters[0], counters[1], counters[2]);
+        });
+        eventRepository.markStatsApplied(pending.stream()
+                .map(LoanEvent::getId)
+                .collect(Collectors.toList()), LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookLoanCountDTO> getMostBorrowed(int limit) {
+        return bookStatsRepository.findMostBorrowed(PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailyLoansDTO> getDailyLoans(LocalDate from, LocalDate to) {
+        Map<LocalDate, DailyLoanStats> rows = dailyStatsRepository.findByDayBetweenOrderByDay(from, to)
+                .stream()
+                .collect(Collectors.toMap(DailyLoanStats::getDay, Function.identity()));
+        long active = dailyStatsRepository.findFirstByDayLessThanOrderByDayDesc(from)
+                .map(DailyLoanStats::getActiveLoans)
+                .orElse(0L);
+        List<DailyLoansDTO> result = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DailyLoanStats row = rows.get(day);
+            long started = row == null ? 0 : row.getLoansStarted();
+            long returned = row == null ? 0 : row.getLoansReturned();
+            active += started - returned;
+            result.add(new DailyLoansDTO(day, started, returned, active));
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LoanDurationDTO getLoanDuration(LocalDate from, LocalDate to) {
+        long returned = 0;
+        long loanDays = 0;
+        for (DailyLoanStats row : dailyStatsRepository.findByDayBetweenOrderByDay(from, to)) {
+            returned += row.getLoansReturned();
+            loanDays += row.getReturnedLoanDays();
+        }
+        return new LoanDurationDTO(from, to, returned, returned == 0 ? null : (double) loanDays / returned);
+    }
+
+    /**
+     * Recalcula tudo a partir da tabela loan e marca como aplicados os eventos ainda
+     * pendentes, que ja entram na contagem. Um emprestimo gravado no meio do rebuild
+     * pode contar duas vezes; rodar o rebuild de novo corrige.
+     */
+    @Override
+    @Transactional
+    public void rebuild() {
+        JobWatermark lock = lock();
+        eventRepository.markAllStatsApplied(LocalDateTime.now());
+        bookStatsRepository.deleteAllInBatch();
+        bookStatsRepository.rebuild();
+        dailyStatsRepository.deleteAllInBatch();
+        dailyStatsRepository.rebuild();
+        lock.setProcessedUntil(LocalDate.now());
+    }
+
+    private JobWatermark lock() {
+        return watermarkRepository.lockByName(STATISTICS_LOCK)
+                .orElseThrow(() -> new IllegalStateException("Watermark " + STATISTICS_LOCK + " not found"));
+    }
+
+    /**
+     * O consumidor do outbox segura a trava em modo compartilhado, entao o rebuild
+     * (modo exclusivo) espera o lote em andamento e nenhum lote grava no meio dele.
+     * A trava fica so no caminho do outbox; a gravacao do emprestimo nao a usa.
+     */
+    private void lockShared() {
+        watermarkRepository.lockSharedByName(STATISTICS_LOCK)
+                .orElseThrow(() -> new IllegalStateException("Watermark " + STATISTICS_LOCK + " not found"));
+    }
+
+    private static long loanDays(Loan loan) {
+        return loan.getLoanDate() == null ? 0 : ChronoUnit.DAYS.between(loan.getLoanDate(), loan.getReturnDate());
+    }
+}
@@ -2,13 +2,21 @@ package com.wallassouza.bibliotecaapi.api.resource.service;
 
 import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mail.MailException;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ScheduleService {
@@ -18,15 +26,90 @@ public class ScheduleService {
     @Value("${application.mail.lateloans.message}")
     private String mensagem;
 
-    private final LoanService loanService;
+    @Value("${application.mail.lateloans.page-size}")
+    private int pageSize;
+
+    @Value("${application.mail.lateloans.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${application.mail.lateloans.retry-backoff-ms}")
+    private long retryBackoffMs;
+
+    private final LoanNotificationService notificationService;
     private final EmailService emailService;
+    @Qualifier("lateLoanMailExecutor")
+    private final TaskExecutor mailExecutor;
 
     @Scheduled(cron = CRON_LATE_LOANS)
     public void sendMailToLateLoans(){
-        List<Loan> allLateLoans = loanService.getAllLateLoans();
-        List<String> mailsList = allLateLoans.stream()
-                .map(loan -> loan.getEmail()).collect(Collectors.toList());
+        LocalDate today = LocalDate.now();
+        LocalDate from = notificationService.getWatermark();
+        notifyPages(after -> notificationService.findNewlyOverdue(from, today, after, pageSize));
+        notifyPages(after -> notificationService.findRemindersDue(today, after, pageSize));
+        notificationService.advanceWatermark(today);
+    }
+
+    private void notifyPages(Function<Long, List<Loan>> pages) {
+        Long after = 0L;
+        List<Loan> page;
+        do {
+            page = pages.apply(after);
+            if (page.isEmpty()) {
+                break;
+            }
+            List<Long> sent = sendPage(page);
+            notificationService.registerSent(sent);
+            Set<Long> delivered = new HashSet<>(sent);
+            List<Long> failed = page.stream()
+                    .filter(loan -> loan.getEmail() != null && !delivered.contains(loan.getId()))
+                    .map(Loan::getId)
+                    .collect(Collectors.toList());
+            if (!failed.isEmpty()) {
+                notificationService.registerFailed(failed);
+            }
+            after = page.get(page.size() - 1).getId();
+        } while (page.size() == pageSize);
+    }
+
+    private List<Long> sendPage(List<Loan> page) {
+        Map<String, List<Long>> loansByRecipient = page.stream()
+                .filter(loan -> loan.getEmail() != null)
+                .collect(Collectors.groupingBy(Loan::getEmail, LinkedHashMap::new,
+                        Collectors.mapping(Loan::getId, Collectors.toList())));
+
+        List<CompletableFuture<List<Long>>> sends = loansByRecipient.entrySet().stream()
+                .map(entry -> CompletableFuture.supplyAsync(
+                        () -> send(entry.getKey()) ? entry.getValue() : Collections.<Long>emptyList(),
+                        mailExecutor))
+                .collect(Collectors.toList());
+
+        List<Long> sent = new ArrayList<>();
+        sends.forEach(send -> sent.addAll(send.join()));
+        return sent;
+    }
+
+    private boolean send(String recipient) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                emailService.sendMail(mensagem, recipient);
+                return true;
+            } catch (MailException ex) {
+                log.warn("Falha ao enviar email de atraso (tentativa {} de {})", attempt, maxAttempts, ex);
+                if (attempt < maxAttempts && !backoff(attempt)) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
 
-        emailService.sendMail(mensagem,mailsList);
+    private boolean backoff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs * attempt);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 }
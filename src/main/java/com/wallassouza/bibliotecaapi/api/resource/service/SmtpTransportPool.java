@@ -0,0 +1,193 @@
+package com.wallassouza.bibliotecaapi.api.resource.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool pequeno de conexoes SMTP autenticadas. Cada conexao e reaproveitada ate
+ * max-messages-per-connection envios ou max-idle-ms parada, evitando o connect,
+ * EHLO, STARTTLS e AUTH que o JavaMailSender faz a cada send.
+ */
+@Slf4j
+@Component
+public class SmtpTransportPool {
+
+    private final JavaMailSenderImpl mailSender;
+    // LIFO: as conexoes mais usadas continuam quentes e as sobrando expiram por max-idle-ms
+    private final BlockingDeque<PooledTransport> idle;
+    private final int maxMessagesPerConnection;
+    private final long maxIdleMillis;
+    private final long borrowTimeoutMillis;
+    private final AtomicLong connectionsOpened = new AtomicLong();
+
+    public SmtpTransportPool(JavaMailSenderImpl mailSender,
+                             @Value("${application.mail.pool.size}") int size,
+                             @Value("${application.mail.pool.max-messages-per-connection}") int maxMessagesPerConnection,
+                             @Value("${application.mail.pool.max-idle-ms}") long maxIdleMillis,
+                             @Value("${application.mail.pool.borrow-timeout-ms}") long borrowTimeoutMillis) {
+        this.mailSender = mailSender;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.maxIdleMillis = maxIdleMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idle = new LinkedBlockingDeque<>(size);
+        for (int i = 0; i < size; i++) {
+            idle.add(new PooledTransport());
+        }
+    }
+
+    public Session getSession() {
+        return mailSender.getSession();
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    /**
+     * Envia a mensagem numa conexao do pool. Se a conexao caiu no meio do caminho
+     * ela e descartada e o envio e refeito uma vez numa conexao nova. Recusas de
+     * destinatario (SendFailedException) nao derrubam a conexao.
+     */
+    public void send(MimeMessage message) {
+        PooledTransport transport = borrow();
+        try {
+            send(transport, message);
+        } finally {
+            idle.addFirst(transport);
+        }
+    }
+
+    /**
+     * Envia todas as mensagens na mesma conexao e devolve as que falharam.
+     */
+    public List<MimeMessage> sendAll(List<MimeMessage> messages) {
+        List<MimeMessage> failed = new ArrayList<>();
+        PooledTransport transport = borrow();
+        try {
+            for (MimeMessage message : messages) {
+                try {
+                    send(transport, message);
+                } catch (MailSendException ex) {
+                    log.warn("Falha ao enviar email", ex);
+                    failed.add(message);
+                }
+            }
+        } finally {
+            idle.addFirst(transport);
+        }
+        return failed;
+    }
+
+    private void send(PooledTransport transport, MimeMessage message) {
+        try {
+            transport.sendOrReconnect(message);
+        } catch (SendFailedException ex) {
+            throw new MailSendException("Destinatario recusado", ex);
+        } catch (MessagingException ex) {
+            transport.close();
+            throw new MailSendException("Falha ao enviar email", ex);
+        }
+    }
+
+    private String protocol() {
+        String protocol = mailSender.getProtocol();
+        if (protocol == null) {
+            protocol = getSession().getProperty("mail.transport.protocol");
+        }
+        return protocol == null ? JavaMailSenderImpl.DEFAULT_PROTOCOL : protocol;
+    }
+
+    @PreDestroy
+    public void close() {
+        idle.forEach(PooledTransport::close);
+    }
+
+    private PooledTransport borrow() {
+        try {
+            PooledTransport transport = idle.pollFirst(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+            if (transport == null) {
+                throw new MailSendException("Nenhuma conexao SMTP livre em " + borrowTimeoutMillis + "ms");
+            }
+            return transport;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrompido aguardando conexao SMTP", ex);
+        }
+    }
+
+    private final class PooledTransport {
+        private Transport transport;
+        private int sent;
+        private long lastUsed;
+
+        void sendOrReconnect(MimeMessage message) throws MessagingException {
+            try {
+                send(message);
+            } catch (SendFailedException ex) {
+                // conexao ainda de pe: o servidor recusou o destinatario. Se caiu (EOF no
+                // MAIL FROM/RCPT TO o JavaMail tambem reporta como SendFailedException), reconecta
+                if (transport != null && transport.isConnected()) {
+                    throw ex;
+                }
+                log.debug("Conexao SMTP perdida, reconectando", ex);
+                close();
+                send(message);
+            } catch (MessagingException ex) {
+                log.debug("Conexao SMTP perdida, reconectando", ex);
+                close();
+                send(message);
+            }
+        }
+
+        void send(MimeMessage message) throws MessagingException {
+            if (transport != null && (sent >= maxMessagesPerConnection
+                    || System.currentTimeMillis() - lastUsed > maxIdleMillis)) {
+                close();
+            }
+            if (transport == null) {
+                Transport opened = getSession().getTransport(protocol());
+                opened.connect(mailSender.getHost(), mailSender.getPort(),
+                        mailSender.getUsername(), mailSender.getPassword());
+                connectionsOpened.incrementAndGet();
+                transport = opened;
+                sent = 0;
+            }
+            if (message.getSentDate() == null) {
+                message.setSentDate(new Date());
+            }
+            message.saveChanges();
+            transport.sendMessage(message, message.getAllRecipients());
+            sent++;
+            lastUsed = System.currentTimeMillis();
+        }
+
+        void close() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException ex) {
+                log.debug("Falha ao fechar conexao SMTP", ex);
+            }
+            transport = null;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+create sequence book_seq start with 1 increment by 50;
+
+create table book (
+    id bigint not null,
+    titulo varchar(255),
+    autor varchar(255),
+    isbn varchar(255),
+    primary key (id)
+);
+
+create unique index ux_book_isbn on book (isbn);
+
+create table loan (
+    id bigint generated by default as identity,
+    customer varchar(255),
+    email varchar(255),
+    loan_date date,
+    returned boolean,
+    id_book bigint,
+    primary key (id)
+);
+
+create index ix_loan_book_returned on loan (id_book, returned);
+create index ix_loan_loan_date_returned on loan (loan_date, returned);
+create index ix_loan_customer on loan (customer);
+
+alter table loan add constraint fk_loan_book foreign key (id_book) references book (id);
+
+create table active_loan (
+    id_book bigint not null,
+    primary key (id_book)
+);
+
+create table loan_notification (
+    id_loan bigint not null,
+    last_sent_on date,
+    sent_count integer,
+    primary key (id_loan)
+);
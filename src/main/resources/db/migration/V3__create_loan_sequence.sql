@@ -0,0 +1,5 @@
+-- O otimizador pooled do Hibernate (allocationSize = 50) trata o valor N devolvido
+-- pela sequence como o topo do bloco e usa os ids N-49..N; por isso o restart fica
+-- em max(id) + 50, acima de todo id ja gravado.
+create sequence loan_seq start with 1 increment by 50;
+alter sequence loan_seq restart with (select coalesce(max(id), 0) + 50 from loan);
@@ -0,0 +1,16 @@
+alter table loan add column due_date date;
+update loan set due_date = dateadd('DAY', 4, loan_date) where loan_date is not null;
+create index ix_loan_due_date_returned on loan (due_date, returned);
+
+alter table loan_notification add column next_reminder_on date;
+create index ix_loan_notification_next_reminder_on on loan_notification (next_reminder_on);
+
+create table job_watermark (
+    name varchar(100) not null,
+    processed_until date not null,
+    primary key (name)
+);
+
+-- falhas seguidas de envio; ao chegar no limite o aviso fica em failed_on e sai da fila de lembretes
+alter table loan_notification add column failed_count integer default 0 not null;
+alter table loan_notification add column failed_on date;
@@ -0,0 +1,17 @@
+create sequence loan_event_seq start with 1 increment by 50;
+
+create table loan_event (
+    id bigint not null,
+    type varchar(30) not null,
+    loan_id bigint not null,
+    book_id bigint,
+    occurred_at timestamp not null,
+    attempts integer default 0 not null,
+    next_attempt_at timestamp,
+    last_error varchar(500),
+    dispatched_at timestamp,
+    dead_lettered_at timestamp,
+    primary key (id)
+);
+create index ix_loan_event_dispatched_at_id on loan_event (dispatched_at, id);
+create index ix_loan_event_dead_lettered_at on loan_event (dead_lettered_at);
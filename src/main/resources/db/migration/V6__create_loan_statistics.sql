@@ -0,0 +1,44 @@
+-- emprestimos devolvidos antes desta versao ficam sem data de devolucao: nao ha como
+-- saber quando voltaram, entao ficam fora das estatisticas diarias e de duracao
+alter table loan add column return_date date;
+
+create table book_loan_stats (
+    id_book bigint not null,
+    loan_count bigint default 0 not null,
+    primary key (id_book)
+);
+-- ranking de mais emprestados ordena por contagem e id do livro; o indice cobre os dois
+create index ix_book_loan_stats_loan_count on book_loan_stats (loan_count desc, id_book);
+
+-- active_loans: emprestimos ativos ao fim do dia, para o relatorio diario nao somar todo o historico
+create table daily_loan_stats (
+    stats_day date not null,
+    loans_started bigint default 0 not null,
+    loans_returned bigint default 0 not null,
+    returned_loan_days bigint default 0 not null,
+    active_loans bigint default 0 not null,
+    primary key (stats_day)
+);
+
+insert into book_loan_stats (id_book, loan_count)
+select id_book, count(*) from loan where id_book is not null group by id_book;
+
+insert into daily_loan_stats (stats_day, loans_started, loans_returned, returned_loan_days, active_loans)
+select stats_day, started, returned, loan_days, sum(started - returned) over (order by stats_day) from (
+    select stats_day, sum(started) as started, sum(returned) as returned, sum(loan_days) as loan_days from (
+        select loan_date as stats_day, 1 as started, 0 as returned, 0 as loan_days
+        from loan where loan_date is not null and (return_date is not null or coalesce(returned, false) = false)
+        union all
+        select return_date, 0, 1, coalesce(datediff('DAY', loan_date, return_date), 0)
+        from loan where returned = true and return_date is not null
+    ) t group by stats_day
+) g;
+
+-- as estatisticas sao gravadas pelo consumidor do outbox; os eventos anteriores
+-- ja entraram na contagem acima
+alter table loan_event add column stats_applied_at timestamp;
+update loan_event set stats_applied_at = current_timestamp;
+create index ix_loan_event_stats_applied_at on loan_event (stats_applied_at);
+
+-- trava entre o consumidor do outbox e o rebuild; guarda a data do ultimo rebuild
+insert into job_watermark (name, processed_until) values ('loan-statistics', current_date);
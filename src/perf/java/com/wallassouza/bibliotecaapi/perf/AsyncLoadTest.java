@@ -0,0 +1,113 @@
+package com.wallassouza.bibliotecaapi.perf;
+
+import com.wallassouza.bibliotecaapi.BibliotecaApiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares tail latency with the synchronous and the asynchronous controller
+ * execution while the database is slow. Heavy clients hammer a book search
+ * that needs a JDBC connection, light clients call the actuator health
+ * endpoint, which never touches the database.
+ *
+ * <pre>mvn -Pperf test-compile exec:exec -Dperf.main=com.wallassouza.bibliotecaapi.perf.AsyncLoadTest</pre>
+ */
+public class AsyncLoadTest {
+
+    private static final int HEAVY_CLIENTS = Integer.getInteger("perf.heavyClients", 100);
+    private static final int LIGHT_CLIENTS = Integer.getInteger("perf.lightClients", 4);
+    private static final int SECONDS = Integer.getInteger("perf.seconds", 20);
+    private static final int TOMCAT_THREADS = Integer.getInteger("perf.tomcatThreads", 20);
+
+    public static void main(String[] args) throws Exception {
+        List<String> report = new ArrayList<>();
+        for (boolean async : new boolean[]{false, true}) {
+            report.addAll(run(async));
+        }
+        System.out.println();
+        System.out.printf("%-6s %-6s %8s %8s %8s %8s %8s %8s%n",
+                "mode", "client", "ok", "503", "errors", "p50 ms", "p95 ms", "p99 ms");
+        report.forEach(System.out::println);
+    }
+
+    private static List<String> run(boolean async) throws Exception {
+        SlowDatabaseConfig.slowDown(false);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                BibliotecaApiApplication.class, SlowDatabaseConfig.class)
+                .run("--server.port=0",
+                        "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                        "--application.async.enabled=" + async,
+                        "--management.health.db.enabled=false",
+                        "--management.health.mail.enabled=false",
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + async + ";DB_CLOSE_DELAY=-1",
+                        "--spring.devtools.restart.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.file.name=");
+        try {
+            new PerfDataSeeder(context).seed(2_000, 1);
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            String base = "http://localhost:" + port;
+            SlowDatabaseConfig.slowDown(true);
+
+            LatencyRecorder heavy = new LatencyRecorder();
+            LatencyRecorder light = new LatencyRecorder();
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(Executors.newFixedThreadPool(8))
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            ExecutorService clients = Executors.newFixedThreadPool(HEAVY_CLIENTS + LIGHT_CLIENTS);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+            for (int i = 0; i < HEAVY_CLIENTS; i++) {
+                clients.execute(() -> loop(client, base + "/api/livros?titulo=Titulo%201&size=20", heavy, deadline));
+            }
+            for (int i = 0; i < LIGHT_CLIENTS; i++) {
+                clients.execute(() -> loop(client, base + "/actuator/health", light, deadline));
+            }
+            clients.shutdown();
+            clients.awaitTermination(SECONDS + 60, TimeUnit.SECONDS);
+
+            String mode = async ? "async" : "sync";
+            return Arrays.asList(line(mode, "heavy", heavy), line(mode, "light", light));
+        } finally {
+            SlowDatabaseConfig.slowDown(false);
+            context.close();
+        }
+    }
+
+    private static String line(String mode, String name, LatencyRecorder recorder) {
+        long[] sorted = recorder.sortedLatencies();
+        return String.format("%-6s %-6s %8d %8d %8d %8.1f %8.1f %8.1f", mode, name,
+                recorder.ok(), recorder.rejected(), recorder.errors(),
+                LatencyRecorder.percentile(sorted, 50),
+                LatencyRecorder.percentile(sorted, 95),
+                LatencyRecorder.percentile(sorted, 99));
+    }
+
+    private static void loop(HttpClient client, String url, LatencyRecorder recorder, long deadline) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                recorder.record(response.statusCode(), System.nanoTime() - start);
+            } catch (Exception ex) {
+                recorder.record(-1, System.nanoTime() - start);
+            }
+        }
+    }
+}
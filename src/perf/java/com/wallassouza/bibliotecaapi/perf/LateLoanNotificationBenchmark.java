@@ -0,0 +1,123 @@
+package com.wallassouza.bibliotecaapi.perf;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.wallassouza.bibliotecaapi.BibliotecaApiApplication;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.service.LoanNotificationServiceImpl;
+import com.wallassouza.bibliotecaapi.api.resource.service.ScheduleService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mails per second of the whole late-loan job (ScheduleService.sendMailToLateLoans):
+ * keyset pages of overdue loans, one message per recipient over the
+ * lateLoanMailExecutor workers and the pooled SMTP connections, plus the
+ * loan_notification bookkeeping per page. GreenMail with AUTH stands in for
+ * the SMTP server. Unlike SmtpDeliveryBenchmark this includes the paging and
+ * the progress writes, so the gap between the two is the job's own overhead.
+ *
+ * Every invocation clears the notifications and the watermark so the same
+ * loans are sent again.
+ *
+ * mvn -Pperf exec:exec -Djmh.args="LateLoanNotificationBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@OperationsPerInvocation(LateLoanNotificationBenchmark.LATE_LOANS)
+public class LateLoanNotificationBenchmark {
+
+    static final int LATE_LOANS = 1000;
+
+    private GreenMail greenMail;
+    private ConfigurableApplicationContext context;
+    private ScheduleService scheduleService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+        greenMail.start();
+        greenMail.setUser("biblioteca", "secret");
+
+        SpringApplication application = new SpringApplication(BibliotecaApiApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        context = application.run(
+                "--spring.datasource.url=jdbc:h2:mem:perf-late-loans;DB_CLOSE_DELAY=-1",
+                "--spring.devtools.restart.enabled=false",
+                "--spring.mail.host=localhost",
+                "--spring.mail.port=" + greenMail.getSmtp().getPort(),
+                "--spring.mail.username=biblioteca",
+                "--spring.mail.password=secret",
+                "--spring.mail.properties.mail.smtp.starttls.enable=false",
+                "--logging.level.root=WARN",
+                "--logging.file.name=");
+        scheduleService = context.getBean(ScheduleService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        seedLateLoans();
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() throws Exception {
+        jdbcTemplate.update("delete from loan_notification");
+        jdbcTemplate.update("delete from job_watermark where name = ?",
+                LoanNotificationServiceImpl.LATE_LOANS_WATERMARK);
+        greenMail.purgeEmailFromAllMailboxes();
+    }
+
+    @TearDown(Level.Invocation)
+    public void checkDelivered() {
+        int delivered = greenMail.getReceivedMessages().length;
+        if (delivered != LATE_LOANS) {
+            throw new IllegalStateException("Expected " + LATE_LOANS + " mails, got " + delivered);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        greenMail.stop();
+    }
+
+    @Benchmark
+    public void sendMailToLateLoans() {
+        scheduleService.sendMailToLateLoans();
+    }
+
+    private void seedLateLoans() {
+        EntityManager entityManager = context.getBean(EntityManager.class);
+        LocalDate today = LocalDate.now();
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            for (int i = 0; i < LATE_LOANS; i++) {
+                Book book = Book.builder()
+                        .titulo("Atrasado " + i)
+                        .autor("Autor")
+                        .isbn("late-" + i)
+                        .build();
+                entityManager.persist(book);
+                entityManager.persist(Loan.builder()
+                        .book(book)
+                        .customer(PerfDataSeeder.CUSTOMER_PREFIX + i)
+                        .email("leitor" + i + "@email.com")
+                        .loanDate(today.minusDays(10))
+                        .dueDate(today.minusDays(5))
+                        .returned(false)
+                        .build());
+            }
+        });
+    }
+}
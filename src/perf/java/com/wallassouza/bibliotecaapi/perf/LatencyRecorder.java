@@ -0,0 +1,71 @@
+package com.wallassouza.bibliotecaapi.perf;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects HTTP response latencies and status counts for one load-test client class.
+ */
+public class LatencyRecorder {
+
+    private final List<Long> latencies = new ArrayList<>();
+    private final AtomicInteger ok = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger errors = new AtomicInteger();
+
+    public void record(int status, long nanos) {
+        if (status == 503) {
+            rejected.incrementAndGet();
+        } else if (status >= 200 && status < 300) {
+            ok.incrementAndGet();
+            synchronized (latencies) {
+                latencies.add(nanos);
+            }
+        } else {
+            errors.incrementAndGet();
+        }
+    }
+
+    public int ok() {
+        return ok.get();
+    }
+
+    public int rejected() {
+        return rejected.get();
+    }
+
+    public int errors() {
+        return errors.get();
+    }
+
+    public long[] sortedLatencies() {
+        synchronized (latencies) {
+            return latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+    }
+
+    public Map<String, Object> summary(double seconds) {
+        long[] sorted = sortedLatencies();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("ok", ok());
+        summary.put("rejected", rejected());
+        summary.put("errors", errors());
+        summary.put("throughputPerSecond", ok() / seconds);
+        summary.put("p50Ms", percentile(sorted, 50));
+        summary.put("p95Ms", percentile(sorted, 95));
+        summary.put("p99Ms", percentile(sorted, 99));
+        summary.put("maxMs", percentile(sorted, 100));
+        return summary;
+    }
+
+    public static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,171 @@
+package com.wallassouza.bibliotecaapi.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.wallassouza.bibliotecaapi.BibliotecaApiApplication;
+import com.wallassouza.bibliotecaapi.api.resource.service.BookServiceImpl;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * Boots the application on embedded H2, seeds it and drives the read endpoints
+ * at fixed request rates. Latency is measured from the scheduled send time, so
+ * a slow server cannot hide queueing by slowing the load generator down.
+ * Results go to {@code load.output} as JSON.
+ *
+ * <pre>
+ * mvn -Pperf test-compile exec:exec -Djmh.args= \
+ *     -Dperf.main=com.wallassouza.bibliotecaapi.perf.LoadTestSuite \
+ *     -Dperf.jvmArgs="-Xmx8g -Dload.books=1000000 -Dload.loansPerBook=10"
+ * </pre>
+ */
+public class LoadTestSuite {
+
+    private static final int BOOKS = Integer.getInteger("load.books", 100_000);
+    private static final int LOANS_PER_BOOK = Integer.getInteger("load.loansPerBook", 10);
+    private static final int CUSTOMERS = Integer.getInteger("load.customers", 10_000);
+    private static final int RATE = Integer.getInteger("load.rate", 50);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmupSeconds", 10);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 60);
+    private static final String OUTPUT = System.getProperty("load.output", "target/load-test-results.json");
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BibliotecaApiApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                        "--spring.devtools.restart.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.file.name=");
+        try {
+            long seedStart = System.nanoTime();
+            new BulkDataSeeder(context).seed(BOOKS, LOANS_PER_BOOK, CUSTOMERS);
+            context.getBean(BookServiceImpl.class).loadSearchIndex();
+            double seedSeconds = (System.nanoTime() - seedStart) / 1e9;
+            System.out.printf("Seeded %d books and %d loans in %.1fs%n", BOOKS, (long) BOOKS * LOANS_PER_BOOK, seedSeconds);
+
+            String base = "http://localhost:" + context.getEnvironment().getRequiredProperty("local.server.port");
+            List<Endpoint> endpoints = new ArrayList<>();
+            endpoints.add(new Endpoint("books", Integer.getInteger("load.rate.books", RATE),
+                    i -> base + "/api/livros?titulo=Titulo%20" + random(BOOKS) + "&page=0&size=20"));
+            endpoints.add(new Endpoint("loansByBook", Integer.getInteger("load.rate.loansByBook", RATE),
+                    i -> base + "/api/livros/" + random(BOOKS) + "/loans?page=0&size=20"));
+            endpoints.add(new Endpoint("loans", Integer.getInteger("load.rate.loans", RATE),
+                    i -> base + "/api/loans?customer=" + PerfDataSeeder.CUSTOMER_PREFIX + (random(CUSTOMERS) - 1)
+                            + "&page=0&size=20"));
+
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(Executors.newFixedThreadPool(16))
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            drive(client, endpoints, WARMUP_SECONDS);
+            endpoints.forEach(Endpoint::reset);
+            drive(client, endpoints, SECONDS);
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("timestamp", Instant.now().toString());
+            report.put("javaVersion", System.getProperty("java.version"));
+            Map<String, Object> dataset = new LinkedHashMap<>();
+            dataset.put("books", BOOKS);
+            dataset.put("loans", (long) BOOKS * LOANS_PER_BOOK);
+            dataset.put("customers", CUSTOMERS);
+            dataset.put("seedSeconds", seedSeconds);
+            report.put("dataset", dataset);
+            report.put("durationSeconds", SECONDS);
+            Map<String, Object> results = new LinkedHashMap<>();
+            for (Endpoint endpoint : endpoints) {
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("targetRatePerSecond", endpoint.rate);
+                summary.put("sent", endpoint.sent);
+                summary.putAll(endpoint.recorder.summary(SECONDS));
+                results.put(endpoint.name, summary);
+            }
+            report.put("endpoints", results);
+
+            File output = new File(OUTPUT);
+            if (output.getParentFile() != null) {
+                output.getParentFile().mkdirs();
+            }
+            ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            mapper.writeValue(output, report);
+            System.out.println(mapper.writeValueAsString(results));
+            System.out.println("Results written to " + output.getAbsolutePath());
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void drive(HttpClient client, List<Endpoint> endpoints, int seconds) throws InterruptedException {
+        ExecutorService schedulers = Executors.newFixedThreadPool(endpoints.size());
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        for (Endpoint endpoint : endpoints) {
+            schedulers.execute(() -> endpoint.run(client, start, end));
+        }
+        schedulers.shutdown();
+        schedulers.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound) + 1;
+    }
+
+    private static class Endpoint {
+        private final String name;
+        private final int rate;
+        private final IntFunction<String> url;
+        private LatencyRecorder recorder = new LatencyRecorder();
+        private int sent;
+
+        Endpoint(String name, int rate, IntFunction<String> url) {
+            this.name = name;
+            this.rate = rate;
+            this.url = url;
+        }
+
+        void reset() {
+            recorder = new LatencyRecorder();
+            sent = 0;
+        }
+
+        void run(HttpClient client, long start, long end) {
+            long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+            List<CompletableFuture<?>> inFlight = new ArrayList<>();
+            LatencyRecorder target = recorder;
+            for (long scheduled = start; scheduled < end; scheduled += interval) {
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long intended = scheduled;
+                HttpRequest request = HttpRequest.newBuilder(URI.create(url.apply(sent++)))
+                        .timeout(Duration.ofSeconds(30))
+                        .GET()
+                        .build();
+                inFlight.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, ex) -> target.record(
+                                ex == null ? response.statusCode() : -1, System.nanoTime() - intended)));
+            }
+            inFlight.forEach(future -> future.handle((value, ex) -> null).join());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.wallassouza.bibliotecaapi.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanDTO;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.BookMapper;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.CachedBookMapper;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.LoanMapper;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Serializa uma pagina de emprestimos de poucos livros, como em loansByBook,
+ * com e sem o JSON do livro pre-serializado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanJsonBenchmark {
+
+    @Param({"100"})
+    public int rows;
+
+    @Param({"10"})
+    public int books;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LoanMapper plainMapper = new LoanMapper(new BookMapper());
+    private final LoanMapper cachedMapper = new LoanMapper(
+            new CachedBookMapper(objectMapper, new ConcurrentMapCache("books-json")));
+
+    private List<Loan> loans;
+
+    @Setup
+    public void setUp() {
+        List<Book> catalog = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            catalog.add(Book.builder().id((long) i).titulo("Titulo " + i).autor("Autor " + i)
+                    .isbn("isbn-" + i).version(0L).build());
+        }
+        loans = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            loans.add(Loan.builder().id((long) i).customer("customer-" + i).email("customer@email.com")
+                    .book(catalog.get(i % books)).loanDate(LocalDate.now()).build());
+        }
+    }
+
+    @Benchmark
+    public byte[] plainBookJson() throws Exception {
+        return serialize(plainMapper);
+    }
+
+    @Benchmark
+    public byte[] cachedBookJson() throws Exception {
+        return serialize(cachedMapper);
+    }
+
+    private byte[] serialize(LoanMapper mapper) throws Exception {
+        List<LoanDTO> page = loans.stream().map(mapper::toDto).collect(Collectors.toList());
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,53 @@
+package com.wallassouza.bibliotecaapi.perf;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.service.BookService;
+import com.wallassouza.bibliotecaapi.api.resource.service.LoanService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LoanSaveBenchmark {
+
+    private LoanService loanService;
+    private BookService bookService;
+    private SeededApplication application;
+    private Book book;
+    private Loan lastLoan;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededApplication application) {
+        this.application = application;
+        this.loanService = application.bean(LoanService.class);
+        this.bookService = application.bean(BookService.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void returnPreviousLoan() {
+        if (lastLoan != null) {
+            loanService.update(lastLoan.getId(), true);
+        }
+        Long id = application.bookIds.get(next++ % application.bookIds.size());
+        book = bookService.getById(id).orElseThrow(IllegalStateException::new);
+    }
+
+    @Benchmark
+    public Loan loanServiceSave() {
+        lastLoan = loanService.save(Loan.builder()
+                .book(book)
+                .customer("perf-bench")
+                .email("perf-bench@email.com")
+                .loanDate(LocalDate.now())
+                .build());
+        return lastLoan;
+    }
+}
@@ -0,0 +1,78 @@
+package com.wallassouza.bibliotecaapi.perf;
+
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanDTO;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.BookMapper;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.LoanMapper;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"100"})
+    public int rows;
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final BookMapper bookMapper = new BookMapper();
+    private final LoanMapper loanMapper = new LoanMapper(bookMapper);
+
+    private List<Book> books;
+    private List<Loan> loans;
+
+    @Setup
+    public void setUp() {
+        books = new ArrayList<>(rows);
+        loans = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Book book = Book.builder().id((long) i).titulo("Titulo " + i).autor("Autor " + i).isbn("isbn-" + i).build();
+            books.add(book);
+            loans.add(Loan.builder().id((long) i).customer("customer-" + i).email("customer@email.com")
+                    .book(book).loanDate(LocalDate.now()).build());
+        }
+    }
+
+    @Benchmark
+    public void booksWithModelMapper(Blackhole blackhole) {
+        for (Book book : books) {
+            blackhole.consume(modelMapper.map(book, BookDTO.class));
+        }
+    }
+
+    @Benchmark
+    public void booksWithBookMapper(Blackhole blackhole) {
+        for (Book book : books) {
+            blackhole.consume(bookMapper.toDto(book));
+        }
+    }
+
+    @Benchmark
+    public void loansWithModelMapper(Blackhole blackhole) {
+        for (Loan loan : loans) {
+            BookDTO bookDTO = modelMapper.map(loan.getBook(), BookDTO.class);
+            LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
+            loanDTO.setBook(bookDTO);
+            blackhole.consume(loanDTO);
+        }
+    }
+
+    @Benchmark
+    public void loansWithLoanMapper(Blackhole blackhole) {
+        for (Loan loan : loans) {
+            blackhole.consume(loanMapper.toDto(loan));
+        }
+    }
+}
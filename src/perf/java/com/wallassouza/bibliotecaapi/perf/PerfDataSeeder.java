@@ -0,0 +1,62 @@
+package com.wallassouza.bibliotecaapi.perf;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.service.LoanService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PerfDataSeeder {
+
+    public static final String CUSTOMER_PREFIX = "customer-";
+    public static final String ISBN_PREFIX = "isbn-";
+    public static final int CUSTOMERS = 100;
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public PerfDataSeeder(ConfigurableApplicationContext context) {
+        this.entityManager = context.getBean(EntityManager.class);
+        this.transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    public List<Long> seed(int books, int loansPerBook) {
+        List<Long> bookIds = new ArrayList<>(books);
+        for (int start = 0; start < books; start += CHUNK_SIZE) {
+            int from = start;
+            int to = Math.min(books, start + CHUNK_SIZE);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = from; i < to; i++) {
+                    Book book = Book.builder()
+                            .titulo("Titulo " + i)
+                            .autor("Autor " + (i % 500))
+                            .isbn(ISBN_PREFIX + i)
+                            .build();
+                    entityManager.persist(book);
+                    for (int l = 0; l < loansPerBook; l++) {
+                        entityManager.persist(Loan.builder()
+                                .book(book)
+                                .customer(CUSTOMER_PREFIX + ((i + l) % CUSTOMERS))
+                                .email("customer" + ((i + l) % CUSTOMERS) + "@email.com")
+                                .loanDate(LocalDate.now().minusDays(30 + l))
+                                .dueDate(LocalDate.now().minusDays(30 + l - LoanService.LOAN_DAYS))
+                                .returned(true)
+                                .build());
+                    }
+                    bookIds.add(book.getId());
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        return bookIds;
+    }
+}
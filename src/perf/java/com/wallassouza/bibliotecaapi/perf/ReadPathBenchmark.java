@@ -0,0 +1,84 @@
+package com.wallassouza.bibliotecaapi.perf;
+
+import com.wallassouza.bibliotecaapi.api.resource.controller.BookController;
+import com.wallassouza.bibliotecaapi.api.resource.controller.loanController;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanFilterDTO;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    @Param({"0", "50"})
+    public int page;
+
+    @Param({"100"})
+    public int size;
+
+    private BookController bookController;
+    private loanController loanController;
+    private BookService bookService;
+    private SeededApplication application;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededApplication application) {
+        this.application = application;
+        this.bookController = application.bean(BookController.class);
+        this.loanController = application.bean(loanController.class);
+        this.bookService = application.bean(BookService.class);
+    }
+
+    @Benchmark
+    public Page<BookDTO> bookControllerFind() {
+        BookDTO filter = BookDTO.builder().titulo("Titulo 1").build();
+        return bookController.find(filter, PageRequest.of(page, size), null).join().getBody();
+    }
+
+    @Benchmark
+    public Page<Book> bookServiceFind() {
+        Book filter = Book.builder().autor("Autor 1").build();
+        return bookService.find(filter, PageRequest.of(page, size));
+    }
+
+    @Benchmark
+    public Page<LoanDTO> loanControllerFind() {
+        int customer = ThreadLocalRandom.current().nextInt(PerfDataSeeder.CUSTOMERS);
+        LoanFilterDTO filter = LoanFilterDTO.builder()
+                .customer(PerfDataSeeder.CUSTOMER_PREFIX + customer)
+                .build();
+        return loanController.find(filter, PageRequest.of(page, size)).join();
+    }
+
+    @Benchmark
+    public Page<LoanDTO> bookControllerLoansByBook() {
+        Long id = application.bookIds.get(ThreadLocalRandom.current().nextInt(application.bookIds.size()));
+        return bookController.loansByBook(id, PageRequest.of(0, size), null).join().getBody();
+    }
+
+    @Benchmark
+    public ResponseEntity<BookDTO> bookControllerGet() {
+        Long id = application.bookIds.get(ThreadLocalRandom.current().nextInt(application.bookIds.size()));
+        return bookController.get(id, null).join();
+    }
+
+    // Livros semeados estao na versao 0, entao o If-None-Match sempre confere.
+    @Benchmark
+    public ResponseEntity<BookDTO> bookControllerGetNotModified() {
+        Long id = application.bookIds.get(ThreadLocalRandom.current().nextInt(application.bookIds.size()));
+        return bookController.get(id, "\"" + id + "-0\"").join();
+    }
+}
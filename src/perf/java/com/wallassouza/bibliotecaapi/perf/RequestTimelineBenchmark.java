@@ -0,0 +1,52 @@
+package com.wallassouza.bibliotecaapi.perf;
+
+import com.wallassouza.bibliotecaapi.api.resource.config.RequestTimeline;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de um par begin/end por fase, que e o que cada statement SQL, chamada
+ * de mapper e serializacao pagam, com e sem linha do tempo na thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestTimelineBenchmark {
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RequestTimeline.detach();
+    }
+
+    @Benchmark
+    public long detached() {
+        long started = RequestTimeline.begin(RequestTimeline.Phase.SQL);
+        RequestTimeline.end(RequestTimeline.Phase.SQL, started);
+        return started;
+    }
+
+    @Benchmark
+    public long attached(Attached state) {
+        long started = RequestTimeline.begin(RequestTimeline.Phase.SQL);
+        RequestTimeline.end(RequestTimeline.Phase.SQL, started);
+        return started;
+    }
+
+    @State(Scope.Thread)
+    public static class Attached {
+
+        @Setup(Level.Iteration)
+        public void attach() {
+            RequestTimeline.attach(new RequestTimeline());
+        }
+
+        @TearDown(Level.Iteration)
+        public void detach() {
+            RequestTimeline.detach();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.wallassouza.bibliotecaapi.perf;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates a slow database by holding every pooled connection for
+ * {@code perf.dbLatencyMs} milliseconds once {@link #slowDown(boolean)} is on.
+ */
+@Configuration
+public class SlowDatabaseConfig {
+
+    private static volatile boolean slow;
+
+    public static void slowDown(boolean enabled) {
+        slow = enabled;
+    }
+
+    @Bean
+    public static BeanPostProcessor slowDataSourcePostProcessor() {
+        long latencyMs = Long.getLong("perf.dbLatencyMs", 50);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource)) {
+                    return bean;
+                }
+                return new DelegatingDataSource((DataSource) bean) {
+                    @Override
+                    public Connection getConnection() throws SQLException {
+                        Connection connection = super.getConnection();
+                        if (slow) {
+                            try {
+                                TimeUnit.MILLISECONDS.sleep(latencyMs);
+                            } catch (InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        return connection;
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package com.wallassouza.bibliotecaapi.perf;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.wallassouza.bibliotecaapi.api.resource.service.EmailServiceImpl;
+import com.wallassouza.bibliotecaapi.api.resource.service.SmtpTransportPool;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Mensagens por segundo contra um SMTP local (GreenMail) com AUTH: um
+ * JavaMailSender.send por mensagem, que conecta e autentica a cada envio,
+ * contra o pool de conexoes do EmailServiceImpl. No loopback o GreenMail
+ * responde cada comando com ~40ms de atraso (delayed ACK), o que faz o
+ * resultado medir basicamente os round-trips economizados, como numa rede.
+ *
+ * mvn -Pperf exec:exec -Djmh.args="SmtpDeliveryBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(SmtpDeliveryBenchmark.MESSAGES)
+public class SmtpDeliveryBenchmark {
+
+    static final int MESSAGES = 50;
+
+    private GreenMail greenMail;
+    private JavaMailSenderImpl mailSender;
+    private SmtpTransportPool transportPool;
+    private EmailServiceImpl emailService;
+    private List<String> recipients;
+
+    @Setup
+    public void setUp() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+        greenMail.start();
+        greenMail.setUser("biblioteca", "secret");
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+        mailSender.setUsername("biblioteca");
+        mailSender.setPassword("secret");
+        Properties properties = new Properties();
+        properties.setProperty("mail.smtp.auth", "true");
+        mailSender.setJavaMailProperties(properties);
+
+        transportPool = new SmtpTransportPool(mailSender, 4, 100, 30_000, 30_000);
+        emailService = new EmailServiceImpl(transportPool);
+        ReflectionTestUtils.setField(emailService, "remetente", "biblioteca@email.com");
+        recipients = IntStream.range(0, MESSAGES)
+                .mapToObj(i -> "leitor" + i + "@email.com")
+                .collect(Collectors.toList());
+    }
+
+    @Setup(Level.Iteration)
+    public void purge() throws Exception {
+        greenMail.purgeEmailFromAllMailboxes();
+    }
+
+    @TearDown
+    public void tearDown() {
+        transportPool.close();
+        greenMail.stop();
+    }
+
+    @Benchmark
+    public void connectionPerMessage() {
+        for (String recipient : recipients) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom("biblioteca@email.com");
+            message.setSubject("Livro com emprestimo atrasado");
+            message.setText("atrasado");
+            message.setTo(recipient);
+            mailSender.send(message);
+        }
+    }
+
+    @Benchmark
+    public void pooledSendMail() {
+        for (String recipient : recipients) {
+            emailService.sendMail("atrasado", recipient);
+        }
+    }
+
+    @Benchmark
+    public List<String> pooledSendBulk() {
+        return emailService.sendBulk("atrasado", recipients);
+    }
+}
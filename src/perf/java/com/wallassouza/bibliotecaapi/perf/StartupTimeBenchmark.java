@@ -0,0 +1,119 @@
+package com.wallassouza.bibliotecaapi.perf;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Time from JVM start to ApplicationReadyEvent, each sample in a fresh JVM:
+ * default configuration, the {@code startup} profile (lazy beans, deferred JPA
+ * repositories, Swagger on first access) and the same profile on the AppCDS
+ * archive. Runs the thin jar from target/startup, so build it first. The
+ * archive is only used when the classpath matches the training run exactly.
+ *
+ * <pre>
+ * mvn -Pstartup package -DskipTests
+ * mvn -Pperf test-compile exec:exec -Djmh.args=10 \
+ *     -Dperf.main=com.wallassouza.bibliotecaapi.perf.StartupTimeBenchmark
+ * </pre>
+ */
+public class StartupTimeBenchmark {
+
+    private static final String DIR = System.getProperty("startup.dir", "target/startup");
+    private static final String MAIN = "com.wallassouza.bibliotecaapi.BibliotecaApiApplication";
+    private static final String STARTUP_LOGGER = "com.wallassouza.bibliotecaapi.api.resource.config.StartupConfig";
+    private static final String STARTUP_MS = "startup-ms=";
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        File archive = new File(DIR, "app.jsa");
+        String classpath = classpath();
+
+        List<Variant> variants = new ArrayList<>();
+        variants.add(new Variant("default", List.of("-Xshare:off"), List.of()));
+        variants.add(new Variant("startup", List.of("-Xshare:off"), List.of("--spring.profiles.active=startup")));
+        if (archive.isFile()) {
+            variants.add(new Variant("startup+cds", List.of("-XX:SharedArchiveFile=" + archive.getPath(), "-Xshare:on"),
+                    List.of("--spring.profiles.active=startup")));
+        } else {
+            System.out.println("No " + archive + ", skipping the AppCDS variant");
+        }
+
+        // One discarded run per variant warms the page cache
+        for (Variant variant : variants) {
+            start(classpath, variant);
+        }
+        for (int i = 0; i < runs; i++) {
+            for (Variant variant : variants) {
+                variant.samples.add(start(classpath, variant));
+            }
+        }
+
+        System.out.printf("%-12s %8s %8s %8s  (ms, %d runs)%n", "variant", "min", "median", "max", runs);
+        for (Variant variant : variants) {
+            Collections.sort(variant.samples);
+            System.out.printf("%-12s %8d %8d %8d%n", variant.name, variant.samples.get(0),
+                    variant.samples.get(variant.samples.size() / 2),
+                    variant.samples.get(variant.samples.size() - 1));
+        }
+    }
+
+    private static String classpath() {
+        File[] jars = new File(DIR).listFiles((dir, name) -> name.endsWith("-startup.jar"));
+        if (jars == null || jars.length != 1) {
+            throw new IllegalStateException("Thin jar not found in " + DIR + ", run mvn -Pstartup package first");
+        }
+        return jars[0].getPath() + File.pathSeparator + DIR + "/lib/*";
+    }
+
+    private static long start(String classpath, Variant variant) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.addAll(variant.jvmArgs);
+        command.addAll(Arrays.asList("-cp", classpath, MAIN));
+        command.addAll(variant.appArgs);
+        command.addAll(Arrays.asList("--application.startup.exit-after-ready=true", "--server.port=0",
+                "--logging.level.root=WARN", "--logging.level." + STARTUP_LOGGER + "=INFO",
+                "--logging.file.name="));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Long startupMillis = null;
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.append(line).append('\n');
+                // StartupConfig logs "startup-ms=<uptime>" at the end of a regular log line
+                int marker = line.indexOf(STARTUP_MS);
+                if (marker >= 0 && line.contains("StartupConfig")) {
+                    startupMillis = Long.parseLong(line.substring(marker + STARTUP_MS.length()).trim());
+                }
+            }
+        }
+        int exit = process.waitFor();
+        if (startupMillis == null || exit != 0) {
+            throw new IllegalStateException(variant.name + " exited with " + exit + ":\n" + output);
+        }
+        return startupMillis;
+    }
+
+    private static final class Variant {
+        private final String name;
+        private final List<String> jvmArgs;
+        private final List<String> appArgs;
+        private final List<Long> samples = new ArrayList<>();
+
+        Variant(String name, List<String> jvmArgs, List<String> appArgs) {
+            this.name = name;
+            this.jvmArgs = jvmArgs;
+            this.appArgs = appArgs;
+        }
+    }
+}
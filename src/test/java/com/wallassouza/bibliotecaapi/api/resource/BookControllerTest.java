@@ -3,9 +3,13 @@ package com.wallassouza.bibliotecaapi.api.resource;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wallassouza.bibliotecaapi.api.resource.controller.BookController;
 import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookImportResultDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.CursorPageDTO;
 import com.wallassouza.bibliotecaapi.api.resource.exception.BusinessException;
 import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.service.BookImportService;
 import com.wallassouza.bibliotecaapi.api.resource.service.BookService;
+import com.wallassouza.bibliotecaapi.api.resource.service.ExportService;
 import com.wallassouza.bibliotecaapi.api.resource.service.LoanService;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
@@ -20,22 +24,33 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static com.wallassouza.bibliotecaapi.api.resource.AsyncMockMvc.perform;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
+@Import(AsyncMockMvc.JdbcExecutorConfig.class)
 @ActiveProfiles("test")
 @WebMvcTest(controllers = BookController.class)
 @AutoConfigureMockMvc
@@ -52,6 +67,12 @@ public class BookControllerTest {
     @MockBean
     LoanService loanService;
 
+    @MockBean
+    BookImportService bookImportService;
+
+    @MockBean
+    ExportService exportService;
+
     @Test
     @DisplayName("Deve criar um livro com sucesso")
     public void createBookTest() throws Exception {
@@ -68,7 +89,7 @@ public class BookControllerTest {
                 .accept(MediaType.APPLICATION_JSON)
                 .content(json);
 
-        mvc.perform(request)
+        perform(mvc, request)
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("id").value(10))
                 .andExpect(jsonPath("titulo").value(dto.getTitulo()))
@@ -93,7 +114,7 @@ public class BookControllerTest {
                 .accept(MediaType.APPLICATION_JSON)
                 .content(json);
 
-        mvc.perform(request)
+        perform(mvc, request)
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("errors", hasSize(3)));
     }
@@ -114,7 +135,7 @@ public class BookControllerTest {
                 .accept(MediaType.APPLICATION_JSON)
                 .content(json);
 
-        mvc.perform(request)
+        perform(mvc, request)
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("errors",hasSize(1)))
                 .andExpect(jsonPath("errors[0]").value(mensagemError));
@@ -139,7 +160,7 @@ public class BookControllerTest {
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat("/" + id))
                 .accept(MediaType.APPLICATION_JSON);
 
-        mvc.perform(request)
+        perform(mvc, request)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("id").value(id))
                 .andExpect(jsonPath("titulo").value(createNewBook().getTitulo()))
@@ -158,11 +179,62 @@ public class BookControllerTest {
                 .get(BOOK_API.concat("/" + 1))
                 .accept(MediaType.APPLICATION_JSON);
 
-        mvc.perform(request)
+        perform(mvc, request)
                 .andExpect(status().isNotFound());
 
     }
 
+    @Test
+    @DisplayName("Deve retornar 304 pela versao do livro sem carrega-lo quando o ETag conferir")
+    public void getBookNotModifiedTest() throws Exception{
+        BDDMockito.given( service.getVersion(1L) ).willReturn(Optional.of(2L));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/" + 1))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1-2\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        perform(mvc, request)
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-2\""))
+                .andExpect(content().string(""));
+
+        Mockito.verify(service, Mockito.never()).getById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve retornar o livro com o novo ETag quando a versao mudar")
+    public void getBookChangedVersionTest() throws Exception{
+        Book book = Book.builder().id(1L).titulo("As aventuras").autor("Wallas").isbn("123").version(2L).build();
+        BDDMockito.given( service.getVersion(1L) ).willReturn(Optional.of(2L));
+        BDDMockito.given( service.getById(1L) ).willReturn(Optional.of(book));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/" + 1))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1-1\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        perform(mvc, request)
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-2\""))
+                .andExpect(jsonPath("id").value(1));
+    }
+
+    @Test
+    @DisplayName("Deve retornar 503 quando o executor JDBC estiver saturado")
+    public void jdbcExecutorSaturatedTest() throws Exception{
+        BDDMockito.given( service.getById(anyLong()) ).willThrow(new TaskRejectedException("fila cheia"));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/" + 1))
+                .accept(MediaType.APPLICATION_JSON);
+
+        perform(mvc, request)
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("errors", hasSize(1)));
+    }
+
     @Test
     @DisplayName("Deve deletar o livro informado.")
     public void deleteBookTest() throws Exception {
@@ -174,7 +246,7 @@ public class BookControllerTest {
         MockHttpServletRequestBuilder delete =
                 MockMvcRequestBuilders.delete(BOOK_API.concat("/" + 1));
 
-        mvc.perform(delete).andExpect(status().isNoContent());
+        perform(mvc, delete).andExpect(status().isNoContent());
 
     }
 
@@ -189,7 +261,7 @@ public class BookControllerTest {
         MockHttpServletRequestBuilder delete =
                 MockMvcRequestBuilders.delete(BOOK_API.concat("/" + 1));
 
-        mvc.perform(delete).andExpect(status().isNotFound());
+        perform(mvc, delete).andExpect(status().isNotFound());
 
     }
 
@@ -205,7 +277,7 @@ public class BookControllerTest {
         BDDMockito.given(service.getById(id))
                 .willReturn(Optional.of(updatingBook));
         Book updatedBook = Book.builder().id(id).autor("Wallas").titulo("As aventuras").isbn("123456789").build();
-        BDDMockito.given(service.update(updatingBook)).willReturn(updatedBook);
+        BDDMockito.given(service.update(Mockito.any(Book.class))).willReturn(updatedBook);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .put(BOOK_API.concat("/" + 1))
@@ -213,13 +285,16 @@ public class BookControllerTest {
                 .accept(MediaType.APPLICATION_JSON)
                 .contentType(MediaType.APPLICATION_JSON);
 
-        mvc.perform(request)
+        perform(mvc, request)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("id").value(id))
                 .andExpect(jsonPath("titulo").value(createNewBook().getTitulo()))
                 .andExpect(jsonPath("autor").value(createNewBook().getAutor()))
                 .andExpect(jsonPath("isbn").value(createNewBook().getIsbn()));
 
+        // a instancia devolvida por getById pode estar no cache e nao deve ser alterada
+        assertThat(updatingBook.getTitulo()).isEqualTo("outro titulo");
+        Mockito.verify(service).update(Mockito.argThat(book -> book != updatingBook && book.getId().equals(id)));
     }
 
     @Test
@@ -236,7 +311,7 @@ public class BookControllerTest {
                 .accept(MediaType.APPLICATION_JSON)
                 .contentType(MediaType.APPLICATION_JSON);
 
-        mvc.perform(request)
+        perform(mvc, request)
                 .andExpect(status().isNotFound());
 
     }
@@ -262,7 +337,7 @@ public class BookControllerTest {
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat(queryString))
                 .accept(MediaType.APPLICATION_JSON);
 
-        mvc.perform(request)
+        perform(mvc, request)
                 .andExpect(status().isOk())
                 .andExpect( jsonPath("content", Matchers.hasSize(1)))
                 .andExpect( jsonPath("totalElements").value(1) )
@@ -271,4 +346,125 @@ public class BookControllerTest {
         ;
     }
 
+    @Test
+    @DisplayName("Deve retornar 304 na busca de livros quando a pagina nao mudar")
+    public void findBooksNotModifiedTest() throws Exception {
+        Book book = Book.builder().id(1l).titulo("As aventuras").autor("Wallas").isbn("123").version(0L).build();
+
+        BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)) )
+                .willReturn( new PageImpl<Book>( Arrays.asList(book), PageRequest.of(0,100), 1) );
+
+        String url = BOOK_API.concat("?titulo=aventuras&page=0&size=100");
+        String etag = perform(mvc, MockMvcRequestBuilders.get(url).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        perform(mvc, MockMvcRequestBuilders.get(url)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        book.setVersion(1L);
+
+        perform(mvc, MockMvcRequestBuilders.get(url)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, Matchers.not(etag)));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros em fatias, sem total exato, com total aproximado opcional")
+    public void findBooksSliceTest() throws Exception {
+        Book book = Book.builder().id(1l).titulo("As aventuras").autor("Wallas").isbn("123").build();
+
+        BDDMockito.given(service.findSlice(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0, 1), true));
+        BDDMockito.given(service.getApproximateTotal(Mockito.any(Book.class))).willReturn(250l);
+
+        perform(mvc, MockMvcRequestBuilders.get(BOOK_API.concat("?titulo=aventuras&slice&page=0&size=1&approximateTotal=true"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("hasNext").value(true))
+                .andExpect(jsonPath("approximateTotal").value(250))
+                .andExpect(jsonPath("totalElements").doesNotExist());
+
+        Mockito.verify(service, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros a partir de um cursor")
+    public void findBooksAfterCursorTest() throws Exception {
+        Book book = Book.builder()
+                .id(5l)
+                .titulo(createNewBook().getTitulo())
+                .isbn(createNewBook().getIsbn())
+                .autor(createNewBook().getAutor())
+                .build();
+
+        BDDMockito.given(service.findAfter(Mockito.any(Book.class), Mockito.eq(4l), Mockito.eq(1)))
+                .willReturn(new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0, 1), true));
+
+        String queryString = String.format("?titulo=%s&after=%s&size=1",
+                book.getTitulo(), CursorPageDTO.encode(4l));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat(queryString))
+                .accept(MediaType.APPLICATION_JSON);
+
+        perform(mvc, request)
+                .andExpect(status().isOk())
+                .andExpect( jsonPath("content", Matchers.hasSize(1)))
+                .andExpect( jsonPath("size").value(1) )
+                .andExpect( jsonPath("nextCursor").value(CursorPageDTO.encode(5l)) )
+                .andExpect( jsonPath("totalElements").doesNotExist() )
+        ;
+    }
+
+    @Test
+    @DisplayName("Deve importar livros em lote a partir de um CSV")
+    public void importBooksCsvTest() throws Exception {
+        BookImportResultDTO result = new BookImportResultDTO();
+        result.addImported(2);
+        result.reject(3, "123", "ISBN já cadastrado");
+        BDDMockito.given(bookImportService.importCsv(Mockito.any(InputStream.class))).willReturn(result);
+
+        String csv = "titulo,autor,isbn\nAs aventuras,Wallas,123\nOutro,Wallas,456\nRepetido,Wallas,123\n";
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/import"))
+                .contentType("text/csv")
+                .accept(MediaType.APPLICATION_JSON)
+                .content(csv);
+
+        perform(mvc, request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("imported").value(2))
+                .andExpect(jsonPath("rejected").value(1))
+                .andExpect(jsonPath("errors[0].line").value(3))
+                .andExpect(jsonPath("errors[0].isbn").value("123"));
+
+        Mockito.verify(bookImportService, Mockito.never()).importNdjson(Mockito.any(InputStream.class));
+    }
+
+    @Test
+    @DisplayName("Deve exportar os livros em streaming")
+    public void exportTest() throws Exception {
+        BDDMockito.willAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(0);
+            output.write("linha\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).given(exportService).exportBooks(Mockito.any(OutputStream.class), Mockito.eq(ExportService.Format.NDJSON));
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export?format=NDJSON")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=books.ndjson"))
+                .andExpect(content().string("linha\n"));
+    }
+
 }
@@ -2,6 +2,7 @@ package com.wallassouza.bibliotecaapi.api.resource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wallassouza.bibliotecaapi.api.resource.controller.loanController;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanBatchResultDTO;
 import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanDTO;
 import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanFilterDTO;
 import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.ReturnedLoanDTO;
@@ -9,6 +10,7 @@ import com.wallassouza.bibliotecaapi.api.resource.exception.BusinessException;
 import com.wallassouza.bibliotecaapi.api.resource.model.Book;
 import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
 import com.wallassouza.bibliotecaapi.api.resource.service.BookService;
+import com.wallassouza.bibliotecaapi.api.resource.service.ExportService;
 import com.wallassouza.bibliotecaapi.api.resource.service.LoanService;
 import com.wallassouza.bibliotecaapi.service.LoanServiceTest;
 import org.hamcrest.Matchers;
@@ -24,21 +26,31 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static com.wallassouza.bibliotecaapi.api.resource.AsyncMockMvc.perform;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
+@Import(AsyncMockMvc.JdbcExecutorConfig.class)
 @ActiveProfiles("test")
 @AutoConfigureMockMvc
 @WebMvcTest(controllers = loanController.class)
@@ -55,6 +67,9 @@ public class LoanControllerTest {
     @MockBean
     private LoanService loanService;
 
+    @MockBean
+    private ExportService exportService;
+
     @Test
     @DisplayName("Deve realizar um emprestimo")
     public void createLoanTest() throws Exception {
@@ -76,11 +91,49 @@ public class LoanControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(json);
 
-        mvc.perform(request)
+        perform(mvc, request)
                 .andExpect(status().isCreated())
                 .andExpect( content().string("1") );
     }
 
+    @Test
+    @DisplayName("Deve realizar emprestimos em lote retornando o resultado de cada item")
+    public void createLoanBatchTest() throws Exception {
+        List<LoanDTO> dtos = Arrays.asList(
+                LoanDTO.builder().isbn("123").customer("Fulano").build(),
+                LoanDTO.builder().isbn("456").customer("Fulano").build());
+        BDDMockito.given(loanService.saveAll(dtos)).willReturn(Arrays.asList(
+                LoanBatchResultDTO.ok(0, 1l, "123"),
+                LoanBatchResultDTO.error(1, null, "456", "Book já emprestado")));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(LOAN_API.concat("/batch"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(dtos));
+
+        perform(mvc, request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(2)))
+                .andExpect(jsonPath("[0].loanId").value(1))
+                .andExpect(jsonPath("[0].success").value(true))
+                .andExpect(jsonPath("[1].success").value(false))
+                .andExpect(jsonPath("[1].error").value("Book já emprestado"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar lotes vazios de devolucao")
+    public void emptyReturnBatchTest() throws Exception {
+        MockHttpServletRequestBuilder request = patch(LOAN_API.concat("/batch"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]");
+
+        perform(mvc, request)
+                .andExpect(status().isBadRequest());
+
+        Mockito.verify(loanService, Mockito.never()).returnAll(Mockito.anyList());
+    }
+
     @Test
     @DisplayName("Deve retorna erro ao tentar fazer emprestimo de um livro inexistente.")
     public void invalidIsbnCreateLoanTest() throws Exception{
@@ -95,7 +148,7 @@ public class LoanControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(json);
 
-        mvc.perform( request )
+        perform(mvc, request)
                 .andExpect( status().isBadRequest() )
                 .andExpect( jsonPath("errors", Matchers.hasSize(1)) )
                 .andExpect( jsonPath("errors[0]").value("Book not found for passed isbn"))
@@ -120,7 +173,7 @@ public class LoanControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(json);
 
-        mvc.perform(request)
+        perform(mvc, request)
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("errors", Matchers.hasSize(1)))
                 .andExpect(jsonPath("errors[0]").value("Book já emprestado"));
@@ -133,19 +186,19 @@ public class LoanControllerTest {
         //cenario {returned: true}
         ReturnedLoanDTO dto = ReturnedLoanDTO.builder().returned(true).build();
         Loan loan = Loan.builder().id(1l).build();
-        BDDMockito.given(loanService.getById(Mockito.anyLong()))
+        BDDMockito.given(loanService.update(1l, true))
                 .willReturn(Optional.of(loan));
 
         String json = new ObjectMapper().writeValueAsString(dto);
 
-        mvc.perform(
+        perform(mvc,
                 patch(LOAN_API.concat("/1"))
                         .accept(MediaType.APPLICATION_JSON)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json)
         ).andExpect(status().isOk());
 
-        Mockito.verify(loanService, Mockito.times(1)).update(loan);
+        Mockito.verify(loanService, Mockito.times(1)).update(1l, true);
     }
 
     @Test
@@ -155,11 +208,11 @@ public class LoanControllerTest {
         ReturnedLoanDTO dto = ReturnedLoanDTO.builder().returned(true).build();
         String json = new ObjectMapper().writeValueAsString(dto);
 
-        BDDMockito.given(loanService.getById(Mockito.anyLong()))
+        BDDMockito.given(loanService.update(Mockito.anyLong(), Mockito.any()))
                 .willReturn(Optional.empty());
 
 
-        mvc.perform(
+        perform(mvc,
                 patch(LOAN_API.concat("/1"))
                         .accept(MediaType.APPLICATION_JSON)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -185,7 +238,7 @@ public class LoanControllerTest {
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(LOAN_API.concat(queryString))
                 .accept(MediaType.APPLICATION_JSON);
 
-        mvc.perform(request)
+        perform(mvc, request)
                 .andExpect(status().isOk())
                 .andExpect( jsonPath("content", Matchers.hasSize(1)))
                 .andExpect( jsonPath("totalElements").value(1) )
@@ -194,4 +247,58 @@ public class LoanControllerTest {
         ;
     }
 
+    @Test
+    @DisplayName("Deve filtrar emprestimos a partir de um cursor")
+    public void findLoansAfterCursorTest() throws Exception {
+        Loan loan = LoanServiceTest.createLoan();
+        loan.setId(8l);
+        loan.setBook(Book.builder().id(1l).isbn("321").build());
+
+        BDDMockito.given(loanService.findAfter(Mockito.any(LoanFilterDTO.class), Mockito.eq(0l), Mockito.eq(10)))
+                .willReturn(new SliceImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 10), false));
+
+        String queryString = String.format("?isbn=%s&customer=%s&after=&size=10",
+                loan.getBook().getIsbn(), loan.getCustomer());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(LOAN_API.concat(queryString))
+                .accept(MediaType.APPLICATION_JSON);
+
+        perform(mvc, request)
+                .andExpect(status().isOk())
+                .andExpect( jsonPath("content", Matchers.hasSize(1)))
+                .andExpect( jsonPath("content[0].id").value(8) )
+                .andExpect( jsonPath("nextCursor").doesNotExist() )
+        ;
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro quando o cursor for invalido")
+    public void invalidCursorTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(LOAN_API.concat("?customer=Fulano&after=@@"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        perform(mvc, request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Invalid cursor"));
+    }
+
+    @Test
+    @DisplayName("Deve exportar os emprestimos em streaming")
+    public void exportTest() throws Exception {
+        BDDMockito.willAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(0);
+            output.write("linha\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).given(exportService).exportLoans(Mockito.any(OutputStream.class), Mockito.eq(ExportService.Format.NDJSON));
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("/export?format=NDJSON")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=loans.ndjson"))
+                .andExpect(content().string("linha\n"));
+    }
+
 }
@@ -0,0 +1,76 @@
+package com.wallassouza.bibliotecaapi.api.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.repository.BookRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.wallassouza.bibliotecaapi.api.resource.AsyncMockMvc.perform;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+public class LoanReturnIntegrationTest {
+
+    static final String LOAN_API = "/api/loans";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Test
+    @DisplayName("Deve emprestar de novo um livro devolvido pela API")
+    public void lendAgainAfterReturnTest() throws Exception {
+        bookRepository.save(Book.builder().titulo("Devolucao").autor("Fulano").isbn("return-again").build());
+
+        String created = perform(mvc, MockMvcRequestBuilders.post(LOAN_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"isbn\":\"return-again\",\"customer\":\"Fulano\"}")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Long id = new ObjectMapper().readValue(created, Long.class);
+
+        perform(mvc, MockMvcRequestBuilders.patch(LOAN_API + "/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"returned\":true}")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        Loan returned = loanRepository.findById(id).get();
+        assertThat(returned.getReturned()).isTrue();
+        assertThat(returned.getReturnDate()).isEqualTo(LocalDate.now());
+
+        perform(mvc, MockMvcRequestBuilders.post(LOAN_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"isbn\":\"return-again\",\"customer\":\"Ciclano\"}")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+
+        List<Long> ids = loanRepository.findIdsByCustomer("Ciclano");
+        assertThat(ids).hasSize(1);
+    }
+}
@@ -0,0 +1,92 @@
+package com.wallassouza.bibliotecaapi.api.resource;
+
+import com.wallassouza.bibliotecaapi.api.resource.controller.LoanStatisticsController;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookLoanCountDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.DailyLoansDTO;
+import com.wallassouza.bibliotecaapi.api.resource.service.LoanStatisticsService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.wallassouza.bibliotecaapi.api.resource.AsyncMockMvc.perform;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@Import(AsyncMockMvc.JdbcExecutorConfig.class)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WebMvcTest(controllers = LoanStatisticsController.class)
+public class LoanStatisticsControllerTest {
+
+    static final String STATISTICS_API = "/api/statistics";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    LoanStatisticsService statisticsService;
+
+    @Test
+    @DisplayName("Deve retornar os livros mais emprestados")
+    public void mostBorrowedTest() throws Exception {
+        BDDMockito.given(statisticsService.getMostBorrowed(2)).willReturn(Arrays.asList(
+                new BookLoanCountDTO(1l, "Titulo", "111", 5l),
+                new BookLoanCountDTO(2l, "Outro", "222", 3l)));
+
+        perform(mvc, MockMvcRequestBuilders.get(STATISTICS_API + "/most-borrowed?limit=2")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].isbn").value("111"))
+                .andExpect(jsonPath("$[1].loanCount").value(3));
+    }
+
+    @Test
+    @DisplayName("Deve retornar os emprestimos ativos por dia do periodo informado")
+    public void dailyLoansTest() throws Exception {
+        LocalDate day = LocalDate.of(2021, 9, 1);
+        BDDMockito.given(statisticsService.getDailyLoans(day, day)).willReturn(
+                Collections.singletonList(new DailyLoansDTO(day, 2, 1, 4)));
+
+        perform(mvc, MockMvcRequestBuilders.get(STATISTICS_API + "/daily-loans?from=2021-09-01&to=2021-09-01")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].day").value("2021-09-01"))
+                .andExpect(jsonPath("$[0].active").value(4));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar um periodo invertido ou maior que o limite")
+    public void invalidRangeTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get(STATISTICS_API + "/daily-loans?from=2021-09-02&to=2021-09-01"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(MockMvcRequestBuilders.get(STATISTICS_API + "/loan-duration?from=2020-01-01&to=2021-09-01"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(statisticsService);
+    }
+
+    @Test
+    @DisplayName("Deve reconstruir as estatisticas sob demanda")
+    public void rebuildTest() throws Exception {
+        perform(mvc, MockMvcRequestBuilders.post(STATISTICS_API + "/rebuild"))
+                .andExpect(status().isNoContent());
+
+        Mockito.verify(statisticsService).rebuild();
+    }
+}
@@ -0,0 +1,113 @@
+package com.wallassouza.bibliotecaapi.api.resource;
+
+import com.wallassouza.bibliotecaapi.api.resource.config.RequestTimeline;
+import com.wallassouza.bibliotecaapi.api.resource.config.SlowRequestLog;
+import com.wallassouza.bibliotecaapi.api.resource.config.SlowRequestsEndpoint;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.repository.BookRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.wallassouza.bibliotecaapi.api.resource.AsyncMockMvc.perform;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = "application.timeline.slow-requests.threshold-ms=0")
+@AutoConfigureMockMvc
+public class RequestTimelineTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    SlowRequestsEndpoint slowRequestsEndpoint;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Test
+    @DisplayName("Deve publicar o tempo de cada fase da requisicao e listar a requisicao no endpoint de lentas")
+    public void phaseBreakdownTest() throws Exception {
+        Book book = bookRepository.save(Book.builder().titulo("Fases").autor("Fulano").isbn("phase-1").build());
+        for (int i = 0; i < 5; i++) {
+            loanRepository.save(Loan.builder().book(book).customer("phase-" + i)
+                    .loanDate(LocalDate.now()).returned(true).build());
+        }
+
+        perform(mvc, MockMvcRequestBuilders.get("/api/livros/" + book.getId() + "/loans?page=0&size=20")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        for (String phase : new String[]{"sql", "mapping", "serialization"}) {
+            Timer timer = registry.get("http.server.requests.phase")
+                    .tag("uri", "/api/livros/{id}/loans")
+                    .tag("phase", phase)
+                    .timer();
+            assertThat(timer.count()).isEqualTo(1);
+            assertThat(timer.totalTime(TimeUnit.NANOSECONDS)).as(phase).isPositive();
+        }
+
+        List<SlowRequestLog.SlowRequest> slowest = slowRequestsEndpoint.slowest(50);
+        SlowRequestLog.SlowRequest request = slowest.stream()
+                .filter(slow -> slow.getUri().equals("/api/livros/{id}/loans"))
+                .findFirst()
+                .get();
+        assertThat(request.getStatus()).isEqualTo(200);
+        assertThat(request.getSqlStatements()).isPositive();
+        assertThat(request.getTotalMs()).isGreaterThanOrEqualTo(
+                request.getSqlMs() + request.getMappingMs() + request.getSerializationMs());
+    }
+
+    @Test
+    @DisplayName("Deve contar uma vez as fases aninhadas e seguir a requisicao para outra thread")
+    public void nestedAndPropagatedPhasesTest() throws Exception {
+        RequestTimeline timeline = new RequestTimeline();
+        RequestTimeline.attach(timeline);
+        try {
+            long outer = RequestTimeline.begin(RequestTimeline.Phase.MAPPING);
+            long inner = RequestTimeline.begin(RequestTimeline.Phase.MAPPING);
+            Thread.sleep(5);
+            RequestTimeline.end(RequestTimeline.Phase.MAPPING, inner);
+            RequestTimeline.end(RequestTimeline.Phase.MAPPING, outer);
+
+            Thread worker = new Thread(RequestTimeline.propagate(() -> {
+                long sql = RequestTimeline.begin(RequestTimeline.Phase.SQL);
+                RequestTimeline.end(RequestTimeline.Phase.SQL, sql);
+            }));
+            worker.start();
+            worker.join();
+        } finally {
+            RequestTimeline.detach();
+        }
+
+        assertThat(timeline.nanos(RequestTimeline.Phase.MAPPING))
+                .isBetween(TimeUnit.MILLISECONDS.toNanos(5), timeline.elapsedNanos());
+        assertThat(timeline.nanos(RequestTimeline.Phase.SQL)).isPositive();
+        assertThat(RequestTimeline.begin(RequestTimeline.Phase.SQL)).isEqualTo(RequestTimeline.NOT_TIMED);
+    }
+}
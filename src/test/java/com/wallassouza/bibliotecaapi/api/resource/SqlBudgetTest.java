@@ -0,0 +1,135 @@
+package com.wallassouza.bibliotecaapi.api.resource;
+
+import com.wallassouza.bibliotecaapi.api.resource.config.SqlBudgetProperties;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.repository.BookRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+
+import static com.wallassouza.bibliotecaapi.api.resource.AsyncMockMvc.perform;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SqlBudgetTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    SqlBudgetProperties budget;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Test
+    @DisplayName("Deve listar os emprestimos de um livro dentro do orcamento de consultas, sem N+1")
+    public void loansByBookWithinBudgetTest() throws Exception {
+        Book book = bookRepository.save(Book.builder().titulo("Orcamento").autor("Fulano").isbn("budget-1").build());
+        for (int i = 0; i < 10; i++) {
+            loanRepository.save(Loan.builder().book(book).customer("budget-" + i)
+                    .loanDate(LocalDate.now()).returned(true).build());
+        }
+
+        perform(mvc, MockMvcRequestBuilders.get("/api/livros/" + book.getId() + "/loans?page=0&size=20")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        DistributionSummary summary = registry.get("http.server.requests.sql")
+                .tag("uri", "/api/livros/{id}/loans")
+                .summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.max()).isBetween(1.0, 3.0);
+
+        DistributionSummary service = registry.get("service.sql.statements")
+                .tag("class", "LoanServiceImpl")
+                .tag("method", "getLoansByBook")
+                .summary();
+        assertThat(service.max()).isBetween(1.0, 2.0);
+    }
+
+    @Test
+    @DisplayName("Deve registrar um lote de emprestimos com numero fixo de comandos SQL")
+    public void loanBatchWithinBudgetTest() throws Exception {
+        postBatch("batch-");
+        postBatch("batch-again-");
+
+        DistributionSummary summary = registry.get("http.server.requests.sql")
+                .tag("uri", "/api/loans/batch")
+                .summary();
+        // as estatisticas ficam com o consumidor do outbox; os dois lotes ficam no orcamento configurado
+        assertThat(summary.count()).isEqualTo(2);
+        assertThat(summary.max()).isLessThanOrEqualTo(budget.budgetFor("POST", "/api/loans/batch"));
+        assertThat(loanRepository.findIdsByCustomer("lote")).hasSize(40);
+    }
+
+    @Test
+    @DisplayName("Deve emprestar e devolver um livro dentro do orcamento de escrita, separado do de leitura")
+    public void loanWriteWithinBudgetTest() throws Exception {
+        bookRepository.save(Book.builder().titulo("Orcamento").autor("Fulano").isbn("budget-write").build());
+
+        String created = perform(mvc, MockMvcRequestBuilders.post("/api/loans")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"isbn\":\"budget-write\",\"customer\":\"Fulano\"}")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        perform(mvc, MockMvcRequestBuilders.patch("/api/loans/" + created)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"returned\":true}")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        DistributionSummary post = registry.get("http.server.requests.sql")
+                .tag("method", "POST")
+                .tag("uri", "/api/loans")
+                .summary();
+        assertThat(post.max()).isLessThanOrEqualTo(budget.budgetFor("POST", "/api/loans"));
+        DistributionSummary patch = registry.get("http.server.requests.sql")
+                .tag("method", "PATCH")
+                .tag("uri", "/api/loans/{id}")
+                .summary();
+        assertThat(patch.max()).isLessThanOrEqualTo(budget.budgetFor("PATCH", "/api/loans/{id}"));
+        assertThat(budget.budgetFor("GET", "/api/loans")).isLessThan(budget.budgetFor("POST", "/api/loans"));
+    }
+
+    private void postBatch(String isbnPrefix) throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 20; i++) {
+            bookRepository.save(Book.builder().titulo("Lote").autor("Fulano").isbn(isbnPrefix + i).build());
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"isbn\":\"").append(isbnPrefix).append(i).append("\",\"customer\":\"lote\"}");
+        }
+        json.append("]");
+
+        perform(mvc, MockMvcRequestBuilders.post("/api/loans/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json.toString())
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+}
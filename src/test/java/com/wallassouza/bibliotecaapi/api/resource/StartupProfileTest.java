@@ -0,0 +1,49 @@
+package com.wallassouza.bibliotecaapi.api.resource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import springfox.documentation.spring.web.plugins.DocumentationPluginsBootstrapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles({"test", "startup"})
+@SpringBootTest
+@AutoConfigureMockMvc
+public class StartupProfileTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ConfigurableListableBeanFactory beanFactory;
+
+    @Test
+    @DisplayName("Deve manter os beans agendados eager com lazy initialization")
+    public void scheduledBeansAreEagerTest() {
+        assertThat(beanFactory.containsSingleton("scheduleService")).isTrue();
+        assertThat(beanFactory.containsSingleton("loanEventDispatcher")).isTrue();
+        assertThat(beanFactory.containsSingleton("bookController")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve gerar a documentacao do swagger no primeiro acesso")
+    public void swaggerOnFirstAccessTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/v2/api-docs"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("paths['/api/livros']").exists());
+
+        assertThat(beanFactory.getBean(DocumentationPluginsBootstrapper.class).isRunning()).isTrue();
+    }
+}
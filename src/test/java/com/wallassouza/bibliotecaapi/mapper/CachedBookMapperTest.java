@@ -0,0 +1,78 @@
+package com.wallassouza.bibliotecaapi.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookDTO;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.BookMapper;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.CachedBookMapper;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.LoanMapper;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CachedBookMapperTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    ConcurrentMapCache cache = new ConcurrentMapCache("books-json");
+    CachedBookMapper cachedMapper = new CachedBookMapper(objectMapper, cache);
+    BookMapper plainMapper = new BookMapper();
+
+    @Test
+    @DisplayName("Deve reaproveitar o JSON do livro enquanto a versao nao mudar")
+    public void reuseJsonForSameVersionTest() throws Exception {
+        Book book = Book.builder().id(1l).titulo("As aventuras").autor("Fulano").isbn("123").version(0l).build();
+
+        BookDTO first = cachedMapper.toDto(book);
+        BookDTO second = cachedMapper.toDto(book);
+
+        assertThat(second).isSameAs(first);
+        assertThat(objectMapper.writeValueAsString(first))
+                .isEqualTo(objectMapper.writeValueAsString(plainMapper.toDto(book)));
+    }
+
+    @Test
+    @DisplayName("Deve serializar novamente o livro quando a versao mudar")
+    public void reserializeOnNewVersionTest() throws Exception {
+        Book book = Book.builder().id(1l).titulo("As aventuras").autor("Fulano").isbn("123").version(0l).build();
+        BookDTO first = cachedMapper.toDto(book);
+
+        book.setTitulo("Novo titulo");
+        book.setVersion(1l);
+        BookDTO second = cachedMapper.toDto(book);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(objectMapper.writeValueAsString(second)).contains("Novo titulo");
+    }
+
+    @Test
+    @DisplayName("Deve embutir o JSON em cache do livro no emprestimo serializado")
+    public void loanWithCachedBookJsonTest() throws Exception {
+        Book book = Book.builder().id(1l).titulo("As aventuras").autor("Fulano").isbn("123").version(0l).build();
+        Loan loan = Loan.builder().id(2l).customer("Fulano").email("fulano@email.com")
+                .book(book).loanDate(LocalDate.now()).build();
+
+        String cached = objectMapper.writeValueAsString(new LoanMapper(cachedMapper).toDto(loan));
+        String plain = objectMapper.writeValueAsString(new LoanMapper(plainMapper).toDto(loan));
+
+        assertThat(cached).isEqualTo(plain);
+    }
+
+    @Test
+    @DisplayName("Nao deve permitir alterar o livro compartilhado pelo cache")
+    public void cachedDtoIsImmutableTest() {
+        Book book = Book.builder().id(1l).titulo("As aventuras").autor("Fulano").isbn("123").version(0l).build();
+        BookDTO cached = cachedMapper.toDto(book);
+
+        assertThatThrownBy(() -> cached.setTitulo("Outro titulo"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> cached.setIsbn("456"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(cachedMapper.toDto(book).getTitulo()).isEqualTo("As aventuras");
+    }
+}
@@ -0,0 +1,74 @@
+package com.wallassouza.bibliotecaapi.mapper;
+
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanDTO;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.BookMapper;
+import com.wallassouza.bibliotecaapi.api.resource.mapper.LoanMapper;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MapperTest {
+
+    BookMapper bookMapper = new BookMapper();
+    LoanMapper loanMapper = new LoanMapper(bookMapper);
+
+    @Test
+    @DisplayName("Deve converter um livro em DTO")
+    public void bookToDtoTest() {
+        Book book = Book.builder().id(1l).titulo("As aventuras").autor("Fulano").isbn("123").build();
+
+        BookDTO dto = bookMapper.toDto(book);
+
+        assertThat(dto.getId()).isEqualTo(1l);
+        assertThat(dto.getTitulo()).isEqualTo("As aventuras");
+        assertThat(dto.getAutor()).isEqualTo("Fulano");
+        assertThat(dto.getIsbn()).isEqualTo("123");
+    }
+
+    @Test
+    @DisplayName("Deve converter um DTO sem id em livro novo")
+    public void dtoToBookTest() {
+        BookDTO dto = BookDTO.builder().titulo("As aventuras").autor("Fulano").isbn("123").build();
+
+        Book book = bookMapper.toEntity(dto);
+
+        assertThat(book.getId()).isNull();
+        assertThat(book.getTitulo()).isEqualTo("As aventuras");
+        assertThat(book.getAutor()).isEqualTo("Fulano");
+        assertThat(book.getIsbn()).isEqualTo("123");
+    }
+
+    @Test
+    @DisplayName("Deve converter um emprestimo em DTO com o livro")
+    public void loanToDtoTest() {
+        Book book = Book.builder().id(1l).titulo("As aventuras").autor("Fulano").isbn("123").build();
+        Loan loan = Loan.builder().id(2l).customer("Fulano").email("fulano@email.com")
+                .book(book).loanDate(LocalDate.now()).build();
+
+        LoanDTO dto = loanMapper.toDto(loan);
+
+        assertThat(dto.getId()).isEqualTo(2l);
+        assertThat(dto.getIsbn()).isEqualTo("123");
+        assertThat(dto.getCustomer()).isEqualTo("Fulano");
+        assertThat(dto.getEmail()).isEqualTo("fulano@email.com");
+        assertThat(dto.getBook().getId()).isEqualTo(1l);
+        assertThat(dto.getBook().getIsbn()).isEqualTo("123");
+    }
+
+    @Test
+    @DisplayName("Deve converter um emprestimo sem livro em DTO sem isbn")
+    public void loanWithoutBookToDtoTest() {
+        Loan loan = Loan.builder().id(2l).customer("Fulano").email("fulano@email.com").build();
+
+        LoanDTO dto = loanMapper.toDto(loan);
+
+        assertThat(dto.getIsbn()).isNull();
+        assertThat(dto.getBook()).isNull();
+    }
+}
@@ -1,5 +1,6 @@
 package com.wallassouza.bibliotecaapi.repository;
 
+import com.wallassouza.bibliotecaapi.api.resource.config.SqlStatementCounter;
 import com.wallassouza.bibliotecaapi.api.resource.model.Book;
 import com.wallassouza.bibliotecaapi.api.resource.repository.BookRepository;
 import org.junit.jupiter.api.DisplayName;
@@ -8,9 +9,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -96,4 +101,57 @@ public class BookRepositoryTest {
         assertThat(deletedBook).isNull();
     }
 
+    @Test
+    @DisplayName("Deve carregar uma pagina de livros por ids em uma unica consulta")
+    public void findByIdInQueryCountTest(){
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(entityManager.persist(createNewBook("isbn-" + i)).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            List<Book> books = repository.findByIdInOrderById(ids);
+
+            assertThat(books).hasSize(5);
+            assertThat(scope.count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros filtrados a partir do cursor informado")
+    public void findByFilterAfterTest(){
+        Book first = createNewBook("123");
+        Book second = createNewBook("456");
+        Book third = createNewBook("789");
+        third.setTitulo("outro titulo");
+        entityManager.persist(first);
+        entityManager.persist(second);
+        entityManager.persist(third);
+
+        Slice<Book> firstSlice = repository.findByFilterAfter("AVENTURA", null, null, 0L, PageRequest.of(0, 1));
+        Slice<Book> secondSlice = repository.findByFilterAfter(
+                "AVENTURA", null, null, firstSlice.getContent().get(0).getId(), PageRequest.of(0, 1));
+
+        assertThat(firstSlice.getContent()).containsExactly(first);
+        assertThat(firstSlice.hasNext()).isTrue();
+        assertThat(secondSlice.getContent()).containsExactly(second);
+        assertThat(secondSlice.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve obter a versao do livro e incrementa-la a cada alteracao")
+    public void findVersionByIdTest(){
+        Book book = entityManager.persistFlushFind(createNewBook("123"));
+        Long initialVersion = repository.findVersionById(book.getId()).get();
+
+        book.setTitulo("novo titulo");
+        entityManager.flush();
+
+        assertThat(initialVersion).isEqualTo(0L);
+        assertThat(repository.findVersionById(book.getId())).contains(1L);
+        assertThat(repository.findVersionById(book.getId() + 1)).isEmpty();
+    }
+
 }
@@ -1,5 +1,6 @@
 package com.wallassouza.bibliotecaapi.repository;
 
+import com.wallassouza.bibliotecaapi.api.resource.config.SqlStatementCounter;
 import com.wallassouza.bibliotecaapi.api.resource.model.Book;
 import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
 import com.wallassouza.bibliotecaapi.api.resource.repository.LoanRepository;
@@ -11,10 +12,13 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import static com.wallassouza.bibliotecaapi.repository.BookRepositoryTest.createNewBook;
@@ -30,17 +34,6 @@ public class LoanRepositoryTest {
     @Autowired
     private TestEntityManager entityManager;
 
-    @Test
-    @DisplayName("Deve verificar se existe emprestimo não devolvido para o livro")
-    public void existsByBookAndNotRetornedTest(){
-        Loan loan = createBook(LocalDate.now());
-        Book book = loan.getBook();
-
-        boolean existe = loanRepository.existsByBookAndNotReturned(book);
-
-        assertThat(existe).isTrue();
-    }
-
     @Test
     @DisplayName("Deve buscar emprestimo pelo isbn do livro ou customer")
     public void findByBookIsbnOrCustomer(){
@@ -59,23 +52,148 @@ public class LoanRepositoryTest {
         assertThat(result.getTotalElements()).isEqualTo(1);
     }
     @Test
-    @DisplayName("Deve Obter emprestimo cuja data emprestimo for menor ou igual a tres dias atras e nao retornados")
-    public void findByLoanDateLessThanAndNotReturned(){
-        Loan loan = createBook(LocalDate.now().minusDays(5));
+    @DisplayName("Deve carregar o livro junto com os emprestimos filtrados por isbn ou customer")
+    public void findByBookIsbnOrCustomerFetchesBook(){
+        createBook(LocalDate.now());
+        entityManager.flush();
+        entityManager.clear();
 
-        List<Loan> result = loanRepository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+        Page<Loan> result = loanRepository.findByBookIsbnOrCustomer("123", "Fulano", PageRequest.of(0, 10));
 
-        assertThat(result).hasSize(1).contains(loan);
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(isLoaded(result.getContent().get(0).getBook())).isTrue();
     }
 
     @Test
-    @DisplayName("Deve retornar vazio")
-    public void notFindByLoanDateLessThanAndNotReturned(){
+    @DisplayName("Deve carregar o livro junto com os emprestimos do livro")
+    public void findByBookFetchesBook(){
         Loan loan = createBook(LocalDate.now());
+        Long bookId = loan.getBook().getId();
+        entityManager.flush();
+        entityManager.clear();
 
-        List<Loan> result = loanRepository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+        Book book = entityManager.find(Book.class, bookId);
+        Page<Loan> result = loanRepository.findByBook(book, PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(isLoaded(result.getContent().get(0).getBook())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve buscar emprestimos pelo isbn ou customer a partir do cursor informado")
+    public void findByBookIsbnOrCustomerAfterTest(){
+        Loan first = createBook(LocalDate.now());
+        Loan second = Loan.builder().book(first.getBook()).customer("Fulano").loanDate(LocalDate.now()).build();
+        entityManager.persist(second);
+
+        Slice<Loan> firstSlice = loanRepository.findByBookIsbnOrCustomerAfter("123", "Fulano", 0L, PageRequest.of(0, 1));
+        Slice<Loan> secondSlice = loanRepository.findByBookIsbnOrCustomerAfter("123", "Fulano", first.getId(), PageRequest.of(0, 1));
+
+        assertThat(firstSlice.getContent()).containsExactly(first);
+        assertThat(firstSlice.hasNext()).isTrue();
+        assertThat(secondSlice.getContent()).containsExactly(second);
+        assertThat(secondSlice.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve intercalar os resultados de isbn e customer lendo so a janela apos o cursor")
+    public void findByBookIsbnOrCustomerAfterMergeTest(){
+        Loan first = createBook(LocalDate.now());
+        List<Loan> byCustomer = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Book book = entityManager.persist(createNewBook("after-" + i));
+            byCustomer.add(entityManager.persist(
+                    Loan.builder().book(book).customer("Ciclano").loanDate(LocalDate.now()).build()));
+            entityManager.persist(Loan.builder().book(first.getBook()).customer("Beltrano").loanDate(LocalDate.now()).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            Slice<Loan> slice = loanRepository.findByBookIsbnOrCustomerAfter("123", "Ciclano",
+                    byCustomer.get(0).getId(), PageRequest.of(0, 3));
+
+            assertThat(slice.getContent()).extracting(Loan::getId).isSorted().hasSize(3);
+            assertThat(slice.getContent().get(0).getId()).isGreaterThan(byCustomer.get(0).getId());
+            assertThat(slice.hasNext()).isTrue();
+            assertThat(scope.count()).as(String.join("\n", scope.statements())).isEqualTo(2);
+            assertThat(scope.statements()).filteredOn(sql -> sql.contains(" union ")).hasSize(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve buscar emprestimos e livros com numero fixo de consultas, sem N+1")
+    public void findByBookIsbnOrCustomerQueryCountTest(){
+        Loan first = createBook(LocalDate.now());
+        for (int i = 0; i < 5; i++) {
+            Book book = entityManager.persist(createNewBook("isbn-" + i));
+            entityManager.persist(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            Page<Loan> result = loanRepository.findByBookIsbnOrCustomer("123", "Fulano", PageRequest.of(0, 10));
+            result.getContent().forEach(loan -> loan.getBook().getTitulo());
+
+            assertThat(result.getContent()).hasSize(6);
+            assertThat(scope.count()).as(String.join("\n", scope.statements())).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve paginar o filtro por isbn ou customer no banco, lendo so os ids da pagina")
+    public void findByBookIsbnOrCustomerPageTest(){
+        Loan first = createBook(LocalDate.now());
+        List<Loan> loans = new ArrayList<>();
+        loans.add(first);
+        for (int i = 0; i < 4; i++) {
+            Book book = entityManager.persist(createNewBook("page-" + i));
+            loans.add(entityManager.persist(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build()));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Page<Loan> page = loanRepository.findByBookIsbnOrCustomer("123", "Fulano", PageRequest.of(1, 2));
+        Slice<Loan> slice = loanRepository.findSliceByBookIsbnOrCustomer("123", "Fulano", PageRequest.of(2, 2));
+        Page<Loan> sorted = loanRepository.findByBookIsbnOrCustomer("123", "Fulano",
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id")));
+
+        assertThat(page.getContent()).extracting(Loan::getId)
+                .containsExactly(loans.get(2).getId(), loans.get(3).getId());
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(slice.getContent()).extracting(Loan::getId).containsExactly(loans.get(4).getId());
+        assertThat(slice.hasNext()).isFalse();
+        assertThat(sorted.getContent()).extracting(Loan::getId)
+                .containsExactly(loans.get(4).getId(), loans.get(3).getId());
+        assertThat(sorted.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Deve buscar uma fatia de emprestimos por cliente em uma unica consulta, sem count")
+    public void findSliceByCustomerQueryCountTest(){
+        Book book = entityManager.persist(createNewBook("123"));
+        for (int i = 0; i < 3; i++) {
+            entityManager.persist(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            Slice<Loan> result = loanRepository.findSliceByBookIsbnOrCustomer(null, "Fulano", PageRequest.of(0, 2));
+            result.getContent().forEach(loan -> loan.getBook().getTitulo());
+
+            assertThat(result.getContent()).hasSize(2);
+            assertThat(result.hasNext()).isTrue();
+            assertThat(scope.count()).as(String.join("\n", scope.statements())).isEqualTo(1);
+        }
+    }
 
-        assertThat(result).isEmpty();
+    private boolean isLoaded(Object entity) {
+        return entityManager.getEntityManager()
+                .getEntityManagerFactory()
+                .getPersistenceUnitUtil()
+                .isLoaded(entity);
     }
 
     private Loan createBook(LocalDate loanDate) {
@@ -0,0 +1,165 @@
+package com.wallassouza.bibliotecaapi.repository;
+
+import com.wallassouza.bibliotecaapi.api.resource.config.SqlStatementCounter;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static com.wallassouza.bibliotecaapi.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class QueryPlanTest {
+
+    // Metodos que leem a tabela inteira de proposito; qualquer outro deve usar indice.
+    static final Map<String, String> FULL_SCANS = Map.of(
+            "BookRepository.streamAll", "exportacao completa",
+            "BookRepository.streamSearchEntries", "carga do indice de busca em memoria",
+            "BookRepository.findSliceByFilter", "busca por substring, so usada sem o indice de busca",
+            "LoanRepository.findSortedWithBookByBookIsbnOrCustomer", "filtro combinado ordenado por outra coluna que nao o id",
+            "LoanRepository.findSortedSliceWithBookByBookIsbnOrCustomer", "filtro combinado ordenado por outra coluna que nao o id",
+            "LoanRepository.streamAll", "exportacao completa");
+
+    @Autowired
+    ApplicationContext context;
+    @Autowired
+    TestEntityManager entityManager;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    Book book;
+
+    @Test
+    @DisplayName("Nenhuma consulta dos repositorios deve varrer a tabela inteira")
+    public void noFullTableScanTest() throws Exception {
+        book = entityManager.persist(createNewBook("123"));
+        entityManager.persist(Loan.builder().book(book).customer("Fulano")
+                .email("fulano@email.com").loanDate(LocalDate.now()).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        Repositories repositories = new Repositories(context);
+        List<String> checked = new ArrayList<>();
+        for (Class<?> domainType : repositories) {
+            Class<?> repositoryInterface = repositories.getRepositoryInformationFor(domainType)
+                    .orElseThrow(IllegalStateException::new)
+                    .getRepositoryInterface();
+            Object repository = repositories.getRepositoryFor(domainType).orElseThrow(IllegalStateException::new);
+            Method[] methods = repositoryInterface.getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                if (method.isSynthetic() || Modifier.isPrivate(method.getModifiers())
+                        || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                String name = repositoryInterface.getSimpleName() + "." + method.getName();
+                checked.add(name);
+                for (String sql : statementsOf(repository, method)) {
+                    if (sql.toLowerCase(Locale.ROOT).startsWith("insert") || FULL_SCANS.containsKey(name)) {
+                        continue;
+                    }
+                    assertThat(explain(sql)).as(name + ": " + sql).doesNotContain("tableScan");
+                }
+            }
+        }
+        assertThat(checked).contains("LoanRepository.findByBookIsbnOrCustomerAfter", "ActiveLoanRepository.release",
+                "LoanEventRepository.findPending", "DailyLoanStatsRepository.findFirstByDayLessThanOrderByDayDesc");
+        assertThat(checked).containsAll(FULL_SCANS.keySet());
+    }
+
+    private List<String> statementsOf(Object repository, Method method) throws Exception {
+        Object[] args = new Object[method.getParameterCount()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = sample(method.getParameterTypes()[i], method.getGenericParameterTypes()[i], method);
+        }
+        // cada metodo roda num savepoint desfeito em seguida, para um nao enxergar o que o outro gravou
+        jdbcTemplate.execute("savepoint query_plan");
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            Object result = method.invoke(repository, args);
+            if (result instanceof Stream) {
+                ((Stream<?>) result).close();
+            }
+            entityManager.flush();
+            return scope.statements();
+        } finally {
+            entityManager.clear();
+            jdbcTemplate.execute("rollback to savepoint query_plan");
+        }
+    }
+
+    private Object sample(Class<?> type, Type genericType, Method method) {
+        if (type == String.class) {
+            return "123";
+        }
+        if (type == Long.class || type == long.class) {
+            return 0L;
+        }
+        if (type == int.class || type == Integer.class) {
+            return 1;
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.now();
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.now();
+        }
+        if (type == Pageable.class) {
+            return PageRequest.of(0, 10);
+        }
+        if (type == Book.class) {
+            return book;
+        }
+        if (Collection.class.isAssignableFrom(type) && genericType instanceof ParameterizedType) {
+            Type element = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+            return Collections.singletonList(sample((Class<?>) element, element, method));
+        }
+        throw new IllegalArgumentException("Sem valor de exemplo para " + genericType + " em " + method);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((java.sql.Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+}
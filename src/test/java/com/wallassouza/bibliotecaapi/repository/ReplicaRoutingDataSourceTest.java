@@ -0,0 +1,156 @@
+package com.wallassouza.bibliotecaapi.repository;
+
+import com.wallassouza.bibliotecaapi.api.resource.config.ReplicaRoutingDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ReplicaRoutingDataSourceTest {
+
+    List<Connection> keepAlive = new ArrayList<>();
+    FlakyDataSource replica2;
+    ReplicaRoutingDataSource routing;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate readOnly;
+    TransactionTemplate readWrite;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        DataSource primary = h2("primary");
+        replica2 = new FlakyDataSource(h2("replica-2"));
+        routing = new ReplicaRoutingDataSource(primary, Arrays.asList(h2("replica-1"), replica2));
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        for (Connection connection : keepAlive) {
+            connection.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve enviar as transacoes read-only para as replicas e as demais para o primario")
+    public void routeByTransactionTest() {
+        List<String> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(read(readOnly));
+        }
+
+        assertThat(reads).containsExactly("replica-1", "replica-2", "replica-1", "replica-2");
+        assertThat(read(readWrite)).isEqualTo("primary");
+        assertThat(node()).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Deve tirar a replica com falha da rotacao e devolve-la apos o health check")
+    public void fallbackAndRecoverTest() {
+        replica2.down = true;
+        List<String> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(read(readOnly));
+        }
+
+        assertThat(reads).containsOnly("replica-1");
+        assertThat(routing.healthyReplicas()).isEqualTo(1);
+
+        routing.checkReplicas();
+        assertThat(routing.healthyReplicas()).isEqualTo(1);
+
+        replica2.down = false;
+        routing.checkReplicas();
+        List<String> recovered = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            recovered.add(read(readOnly));
+        }
+
+        assertThat(routing.healthyReplicas()).isEqualTo(2);
+        assertThat(recovered).containsExactlyInAnyOrder("replica-1", "replica-2");
+    }
+
+    @Test
+    @DisplayName("Deve ler do primario quando nenhuma replica estiver saudavel")
+    public void allReplicasDownTest() {
+        DataSource primary = h2("primary");
+        FlakyDataSource replica = new FlakyDataSource(h2("replica"));
+        replica.down = true;
+        ReplicaRoutingDataSource single = new ReplicaRoutingDataSource(primary, Arrays.asList(replica));
+        DataSource dataSource = new LazyConnectionDataSourceProxy(single);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(true);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        String first = read(transaction);
+        String second = read(transaction);
+
+        assertThat(first).isEqualTo("primary");
+        assertThat(second).isEqualTo("primary");
+        assertThat(single.healthyReplicas()).isEqualTo(0);
+    }
+
+    private String read(TransactionTemplate transaction) {
+        return transaction.execute(status -> node());
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    // cada no e uma instancia H2 separada que responde o proprio nome
+    private DataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + UUID.randomUUID());
+        try {
+            Connection connection = dataSource.getConnection();
+            keepAlive.add(connection);
+            connection.createStatement().execute("create table node (name varchar(20))");
+            connection.createStatement().execute("insert into node values ('" + name + "')");
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return dataSource;
+    }
+
+    static class FlakyDataSource extends DelegatingDataSource {
+        volatile boolean down;
+
+        FlakyDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("replica fora do ar");
+            }
+            return super.getConnection();
+        }
+    }
+}
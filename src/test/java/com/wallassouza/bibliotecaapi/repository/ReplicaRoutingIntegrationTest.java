@@ -0,0 +1,40 @@
+package com.wallassouza.bibliotecaapi.repository;
+
+import com.wallassouza.bibliotecaapi.api.resource.config.ReplicaRoutingDataSource;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.service.BookService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles({"test", "replicas"})
+@SpringBootTest
+public class ReplicaRoutingIntegrationTest {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    ReplicaRoutingDataSource routingDataSource;
+
+    @Test
+    @DisplayName("Deve gravar no primario e ler pelas replicas com o perfil local de replicas")
+    public void writeAndReadThroughReplicasTest() {
+        Book saved = bookService.save(Book.builder().titulo("Replicado").autor("Fulano").isbn("replica-1").build());
+        routingDataSource.checkReplicas();
+
+        assertThat(bookService.getById(saved.getId())).isPresent();
+        assertThat(bookService.find(Book.builder().isbn("replica-1").build(), PageRequest.of(0, 10)).getContent())
+                .extracting(Book::getId)
+                .containsExactly(saved.getId());
+        assertThat(routingDataSource.healthyReplicas()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,54 @@
+package com.wallassouza.bibliotecaapi.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.service.ApproximateCountCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ApproximateCountCacheTest {
+
+    @Test
+    @DisplayName("Deve contar o total em segundo plano sem bloquear a requisicao")
+    public void countInBackgroundTest() {
+        List<Runnable> pending = new ArrayList<>();
+        AtomicInteger counts = new AtomicInteger();
+        ApproximateCountCache cache = new ApproximateCountCache(pending::add, 60_000, 100);
+
+        assertThat(cache.get("book|a", () -> counts.incrementAndGet() * 42L)).isNull();
+        assertThat(cache.get("book|a", () -> counts.incrementAndGet() * 42L)).isNull();
+        assertThat(pending).hasSize(1);
+
+        pending.remove(0).run();
+
+        assertThat(cache.get("book|a", () -> counts.incrementAndGet() * 42L)).isEqualTo(42L);
+        assertThat(pending).isEmpty();
+        assertThat(counts.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve recontar o total quando o valor estiver vencido")
+    public void refreshStaleTotalTest() throws Exception {
+        List<Runnable> pending = new ArrayList<>();
+        AtomicInteger counts = new AtomicInteger();
+        ApproximateCountCache cache = new ApproximateCountCache(pending::add, 20, 100);
+
+        cache.get("loan|b", counts::incrementAndGet);
+        pending.remove(0).run();
+        Thread.sleep(40);
+
+        assertThat(cache.get("loan|b", counts::incrementAndGet)).isEqualTo(1L);
+        assertThat(pending).hasSize(1);
+        pending.remove(0).run();
+        assertThat(cache.get("loan|b", counts::incrementAndGet)).isEqualTo(2L);
+    }
+}
@@ -0,0 +1,123 @@
+package com.wallassouza.bibliotecaapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookImportResultDTO;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.repository.BookRepository;
+import com.wallassouza.bibliotecaapi.api.resource.service.BookImportServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class BookImportServiceTest {
+
+    @Autowired
+    BookRepository repository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    BookImportServiceImpl importService;
+
+    @BeforeEach
+    public void setUp() {
+        importService = new BookImportServiceImpl(repository, new TransactionTemplate(transactionManager),
+                entityManager, new ObjectMapper(), Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(importService, "chunkSize", 2);
+    }
+
+    @Test
+    @DisplayName("Deve importar livros de um NDJSON e rejeitar isbn duplicado")
+    public void importNdjsonTest() throws Exception {
+        repository.save(Book.builder().titulo("aventuras").autor("fulano").isbn("001").build());
+        String ndjson = "{\"titulo\":\"A\",\"autor\":\"Fulano\",\"isbn\":\"100\"}\n"
+                + "{\"titulo\":\"B\",\"autor\":\"Fulano\",\"isbn\":\"001\"}\n"
+                + "\n"
+                + "{\"titulo\":\"C\",\"autor\":\"Fulano\",\"isbn\":\"101\"}\n"
+                + "{\"titulo\":\"D\",\"autor\":\"Fulano\",\"isbn\":\"100\"}\n";
+
+        BookImportResultDTO result = importService.importNdjson(stream(ndjson));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting("line").containsExactly(2l, 5l);
+        assertThat(repository.existsByIsbn("100")).isTrue();
+        assertThat(repository.existsByIsbn("101")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve importar livros de um CSV e rejeitar linhas invalidas")
+    public void importCsvTest() throws Exception {
+        String csv = "isbn,titulo,autor\n"
+                + "200,\"Aventuras, volume 1\",Fulano\n"
+                + "201,,Fulano\n"
+                + "{invalid\n";
+
+        BookImportResultDTO result = importService.importCsv(stream(csv));
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting("line").containsExactly(3l, 4l);
+        assertThat(repository.findByIsbn("200").get().getTitulo()).isEqualTo("Aventuras, volume 1");
+    }
+
+    @Test
+    @DisplayName("Deve gravar linha a linha o lote que esbarra no indice unico de isbn e rejeitar so o conflito")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void importChunkUniqueIsbnViolationTest() throws Exception {
+        // sem a transacao do teste: cada lote e cada linha precisam da propria transacao
+        repository.saveAndFlush(Book.builder().titulo("aventuras").autor("fulano").isbn("race-001").build());
+        try {
+            // simula outro import gravando o isbn entre a consulta e o insert
+            BookRepository racing = Mockito.mock(BookRepository.class, AdditionalAnswers.delegatesTo(repository));
+            Mockito.doReturn(Collections.emptySet()).when(racing).findExistingIsbns(Mockito.anyCollection());
+            importService = new BookImportServiceImpl(racing, new TransactionTemplate(transactionManager),
+                    entityManager, new ObjectMapper(), Validation.buildDefaultValidatorFactory().getValidator());
+            ReflectionTestUtils.setField(importService, "chunkSize", 2);
+            String ndjson = "{\"titulo\":\"A\",\"autor\":\"Fulano\",\"isbn\":\"race-300\"}\n"
+                    + "{\"titulo\":\"B\",\"autor\":\"Fulano\",\"isbn\":\"race-001\"}\n";
+
+            BookImportResultDTO result = importService.importNdjson(stream(ndjson));
+
+            assertThat(result.getImported()).isEqualTo(1);
+            assertThat(result.getRejected()).isEqualTo(1);
+            assertThat(result.getErrors()).extracting("line").containsExactly(2l);
+            assertThat(result.getErrors()).extracting("error").containsOnly("ISBN já cadastrado");
+            assertThat(repository.existsByIsbn("race-300")).isTrue();
+        } finally {
+            repository.findByIsbn("race-300").ifPresent(repository::delete);
+            repository.findByIsbn("race-001").ifPresent(repository::delete);
+        }
+    }
+
+    private InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
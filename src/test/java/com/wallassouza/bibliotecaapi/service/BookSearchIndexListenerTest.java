@@ -0,0 +1,48 @@
+package com.wallassouza.bibliotecaapi.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.service.BookSearchIndex;
+import com.wallassouza.bibliotecaapi.api.resource.service.BookService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class BookSearchIndexListenerTest {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    BookSearchIndex searchIndex;
+
+    @Test
+    @DisplayName("Deve atualizar o indice de busca apos salvar, atualizar e remover um livro")
+    public void indexSyncTest() throws InterruptedException {
+        // a carga inicial roda em segundo plano depois do ApplicationReadyEvent
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!searchIndex.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(searchIndex.isReady()).isTrue();
+
+        Book book = bookService.save(Book.builder().titulo("Indexado Original").autor("Fulano").isbn("index-1").build());
+        assertThat(searchIndex.search("indexado original", null)).containsExactly(book.getId());
+
+        book.setTitulo("Indexado Alterado");
+        book = bookService.update(book);
+        assertThat(searchIndex.search("indexado original", null)).isEmpty();
+        assertThat(searchIndex.search("indexado alterado", null)).containsExactly(book.getId());
+
+        bookService.delete(book);
+        assertThat(searchIndex.search("indexado", null)).isEmpty();
+    }
+}
@@ -0,0 +1,64 @@
+package com.wallassouza.bibliotecaapi.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.service.BookSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookSearchIndexTest {
+
+    BookSearchIndex searchIndex;
+
+    @BeforeEach
+    public void setUp() {
+        searchIndex = new BookSearchIndex();
+        searchIndex.load(Stream.of(
+                book(1l, "As Aventuras de Tom", "Mark Twain"),
+                book(2l, "Dom Casmurro", "Machado de Assis"),
+                book(3l, "Memorias Postumas", "Machado de Assis")));
+    }
+
+    @Test
+    @DisplayName("Deve encontrar livros por trecho do titulo ou autor ignorando maiusculas")
+    public void searchTest() {
+        assertThat(searchIndex.isReady()).isTrue();
+        assertThat(searchIndex.search("aventuras", null)).containsExactly(1l);
+        assertThat(searchIndex.search(null, "MACHADO")).containsExactly(2l, 3l);
+        assertThat(searchIndex.search("postumas", "machado")).containsExactly(3l);
+        assertThat(searchIndex.search("om", null)).containsExactly(1l, 2l);
+        assertThat(searchIndex.search("casmurro", "twain")).isEmpty();
+        assertThat(searchIndex.search(null, null)).containsExactly(1l, 2l, 3l);
+    }
+
+    @Test
+    @DisplayName("Nao deve aceitar filtros sem trigramas, que varreriam o indice inteiro")
+    public void searchableTest() {
+        assertThat(searchIndex.isSearchable("dom", null)).isTrue();
+        assertThat(searchIndex.isSearchable("om", "machado")).isTrue();
+        assertThat(searchIndex.isSearchable("om", "ma")).isFalse();
+        assertThat(searchIndex.isSearchable(null, null)).isFalse();
+        assertThat(new BookSearchIndex().isSearchable("dom", null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve manter o indice atualizado ao salvar, atualizar e remover livros")
+    public void syncTest() {
+        searchIndex.index(book(4l, "Quincas Borba", "Machado de Assis"));
+        searchIndex.index(book(2l, "Helena", "Machado de Assis"));
+        searchIndex.remove(3l);
+
+        assertThat(searchIndex.search(null, "machado")).containsExactly(2l, 4l);
+        assertThat(searchIndex.search("casmurro", null)).isEmpty();
+        assertThat(searchIndex.search("helena", null)).containsExactly(2l);
+        assertThat(searchIndex.size()).isEqualTo(3);
+    }
+
+    private Book book(Long id, String titulo, String autor) {
+        return Book.builder().id(id).titulo(titulo).autor(autor).build();
+    }
+}
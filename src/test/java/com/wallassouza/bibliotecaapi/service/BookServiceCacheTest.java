@@ -0,0 +1,153 @@
+package com.wallassouza.bibliotecaapi.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.mapper.BookMapper;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.repository.BookRepository;
+import com.wallassouza.bibliotecaapi.api.resource.service.BookService;
+import com.wallassouza.bibliotecaapi.api.resource.service.BookServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class BookServiceCacheTest {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    BookMapper bookMapper;
+
+    @MockBean
+    BookRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    @DisplayName("Deve obter o livro por id do cache na segunda consulta")
+    public void getByIdCachedTest() {
+        Book book = Book.builder().id(1l).isbn("123").build();
+        when(repository.findById(1l)).thenReturn(Optional.of(book));
+
+        bookService.getById(1l);
+        Optional<Book> cached = bookService.getById(1l);
+
+        assertThat(cached).contains(book);
+        verify(repository, times(1)).findById(1l);
+    }
+
+    @Test
+    @DisplayName("Deve obter o livro por isbn do cache na segunda consulta")
+    public void getByIsbnCachedTest() {
+        Book book = Book.builder().id(1l).isbn("123").build();
+        when(repository.findByIsbn("123")).thenReturn(Optional.of(book));
+
+        bookService.getBookByIsbn("123");
+        Optional<Book> cached = bookService.getBookByIsbn("123");
+
+        assertThat(cached).contains(book);
+        verify(repository, times(1)).findByIsbn("123");
+    }
+
+    @Test
+    @DisplayName("Nao deve guardar no cache livros inexistentes")
+    public void missNotCachedTest() {
+        when(repository.findById(1l)).thenReturn(Optional.empty());
+
+        bookService.getById(1l);
+        bookService.getById(1l);
+
+        verify(repository, times(2)).findById(1l);
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache ao atualizar um livro")
+    public void updateEvictsTest() {
+        Book book = Book.builder().id(1l).isbn("123").build();
+        when(repository.findById(1l)).thenReturn(Optional.of(book));
+        when(repository.findByIsbn("123")).thenReturn(Optional.of(book));
+        when(repository.save(book)).thenReturn(book);
+
+        bookService.getById(1l);
+        bookService.getBookByIsbn("123");
+        bookService.update(book);
+        bookService.getById(1l);
+        bookService.getBookByIsbn("123");
+
+        verify(repository, times(2)).findById(1l);
+        verify(repository, times(2)).findByIsbn("123");
+    }
+
+    @Test
+    @DisplayName("Nao deve manter no cache o livro antigo lido durante a atualizacao")
+    public void updateEvictsReadDuringSaveTest() {
+        Book stale = Book.builder().id(1l).isbn("123").titulo("antigo").build();
+        Book updated = Book.builder().id(1l).isbn("123").titulo("novo").build();
+        when(repository.findById(1l)).thenReturn(Optional.of(stale), Optional.of(updated));
+        // leitura concorrente entre a remocao de antes da chamada e o commit
+        when(repository.save(updated)).thenAnswer(invocation -> {
+            bookService.getById(1l);
+            return updated;
+        });
+
+        bookService.update(updated);
+
+        assertThat(bookService.getById(1l)).contains(updated);
+        verify(repository, times(2)).findById(1l);
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache ao deletar um livro")
+    public void deleteEvictsTest() {
+        Book book = Book.builder().id(1l).isbn("123").build();
+        when(repository.findById(1l)).thenReturn(Optional.of(book));
+        when(repository.findByIsbn("123")).thenReturn(Optional.of(book));
+
+        bookService.getById(1l);
+        bookService.getBookByIsbn("123");
+        bookService.delete(book);
+        bookService.getById(1l);
+        bookService.getBookByIsbn("123");
+
+        verify(repository, times(2)).findById(1l);
+        verify(repository, times(2)).findByIsbn("123");
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o JSON serializado do livro ao atualizar e ao deletar")
+    public void updateAndDeleteEvictJsonTest() {
+        Book book = Book.builder().id(1l).isbn("123").version(0l).build();
+        when(repository.save(book)).thenReturn(book);
+        Cache json = cacheManager.getCache(BookServiceImpl.BOOKS_JSON);
+
+        bookMapper.toDto(book);
+        assertThat(json.get(1l)).isNotNull();
+        bookService.update(book);
+        assertThat(json.get(1l)).isNull();
+
+        bookMapper.toDto(book);
+        bookService.delete(book);
+        assertThat(json.get(1l)).isNull();
+    }
+}
@@ -3,6 +3,8 @@ package com.wallassouza.bibliotecaapi.service;
 import com.wallassouza.bibliotecaapi.api.resource.exception.BusinessException;
 import com.wallassouza.bibliotecaapi.api.resource.model.Book;
 import com.wallassouza.bibliotecaapi.api.resource.repository.BookRepository;
+import com.wallassouza.bibliotecaapi.api.resource.service.ApproximateCountCache;
+import com.wallassouza.bibliotecaapi.api.resource.service.BookSearchIndex;
 import com.wallassouza.bibliotecaapi.api.resource.service.BookService;
 import com.wallassouza.bibliotecaapi.api.resource.service.BookServiceImpl;
 import org.assertj.core.api.Assertions;
@@ -11,18 +13,27 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -37,9 +48,17 @@ public class BookServiceTest {
     @MockBean
     BookRepository repository;
 
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    BookSearchIndex searchIndex;
+
     @BeforeEach
     public void setUp() {
-        this.bookService = new BookServiceImpl(repository);
+        this.searchIndex = new BookSearchIndex();
+        this.bookService = new BookServiceImpl(repository, searchIndex,
+                new ApproximateCountCache(new SyncTaskExecutor(), 60_000, 100),
+                new SyncTaskExecutor(), transactionManager);
     }
 
     @Test
@@ -200,4 +219,92 @@ public class BookServiceTest {
         verify(repository, times(1)).findByIsbn(isbn);
     }
 
+    @Test
+    @DisplayName("Deve lançar erro quando o indice unico de ISBN rejeitar um cadastro concorrente")
+    public void saveBookUniqueIsbnViolationTest() {
+        Book book = createValidBook();
+        when(repository.existsByIsbn(Mockito.anyString())).thenReturn(false);
+        when(repository.save(book)).thenThrow(new DataIntegrityViolationException("ux_book_isbn"));
+
+        Throwable exception = Assertions.catchThrowable(() -> bookService.save(book));
+
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("ISBN já cadastrado");
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros pelo indice de busca sem varrer a tabela")
+    public void findBookByIndexTest(){
+        searchIndex.load(Stream.of(
+                Book.builder().id(1l).titulo("As aventuras").autor("Fulano").build(),
+                Book.builder().id(2l).titulo("Outro livro").autor("Ciclano").build(),
+                Book.builder().id(3l).titulo("Novas Aventuras").autor("Beltrano").build()));
+        Book book = Book.builder().id(3l).titulo("Novas Aventuras").autor("Beltrano").build();
+        when(repository.findByIdInOrderById(Collections.singletonList(3l)))
+                .thenReturn(Collections.singletonList(book));
+
+        Page<Book> resultado = bookService.find(Book.builder().titulo("aventuras").build(), PageRequest.of(1, 1));
+
+        assertThat(resultado.getTotalElements()).isEqualTo(2);
+        assertThat(resultado.getContent()).containsExactly(book);
+        verify(repository, never()).findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Deve retornar pagina vazia quando o indice nao encontrar livros")
+    public void findBookByIndexEmptyTest(){
+        searchIndex.load(Stream.of(Book.builder().id(1l).titulo("As aventuras").autor("Fulano").build()));
+
+        Page<Book> resultado = bookService.find(Book.builder().autor("inexistente").build(), PageRequest.of(0, 10));
+
+        assertThat(resultado.getTotalElements()).isEqualTo(0);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Deve buscar uma fatia de livros sem executar o count")
+    public void findSliceWithoutCountTest() {
+        Book filter = Book.builder().isbn("123").build();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(repository.findSliceByFilter(null, null, "123", pageRequest))
+                .thenReturn(new SliceImpl<>(Arrays.asList(createValidBook()), pageRequest, true));
+
+        Slice<Book> result = bookService.findSlice(filter, pageRequest);
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.hasNext()).isTrue();
+        verify(repository, never()).findAll(Mockito.any(Example.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve buscar pelo banco quando o filtro for curto demais para o indice")
+    public void findShortFilterTest() {
+        searchIndex.load(Stream.of(Book.builder().id(1l).titulo("As aventuras").autor("Fulano").build()));
+        Book filter = Book.builder().titulo("as").build();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(repository.findSliceByFilter("as", null, null, pageRequest))
+                .thenReturn(new SliceImpl<>(Collections.emptyList(), pageRequest, false));
+
+        bookService.findSlice(filter, pageRequest);
+
+        verify(repository).findSliceByFilter("as", null, null, pageRequest);
+        verify(repository, never()).findByIdInOrderById(Mockito.anyList());
+    }
+
+    @Test
+    @DisplayName("Deve buscar pelo banco ate o indice terminar de carregar em segundo plano")
+    public void findBeforeIndexLoadedTest() {
+        Book filter = Book.builder().titulo("aventuras").build();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(repository.findSliceByFilter("aventuras", null, null, pageRequest))
+                .thenReturn(new SliceImpl<>(Collections.emptyList(), pageRequest, false));
+        when(repository.streamSearchEntries()).thenReturn(Stream.empty());
+
+        bookService.findSlice(filter, pageRequest);
+        ((BookServiceImpl) bookService).scheduleSearchIndexLoad();
+
+        verify(repository).findSliceByFilter("aventuras", null, null, pageRequest);
+        assertThat(searchIndex.isReady()).isTrue();
+    }
 }
@@ -0,0 +1,83 @@
+package com.wallassouza.bibliotecaapi.service;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.wallassouza.bibliotecaapi.api.resource.service.EmailService;
+import com.wallassouza.bibliotecaapi.api.resource.service.EmailServiceImpl;
+import com.wallassouza.bibliotecaapi.api.resource.service.SmtpTransportPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.mail.internet.MimeMessage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class EmailServiceTest {
+
+    GreenMail greenMail;
+    SmtpTransportPool transportPool;
+    EmailService emailService;
+
+    @BeforeEach
+    public void setUp() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+        greenMail.start();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+        transportPool = new SmtpTransportPool(mailSender, 2, 4, 30_000, 1_000);
+        emailService = new EmailServiceImpl(transportPool);
+        ReflectionTestUtils.setField(emailService, "remetente", "biblioteca@email.com");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transportPool.close();
+        greenMail.stop();
+    }
+
+    @Test
+    @DisplayName("Deve enviar em lote reaproveitando a conexao ate o limite de mensagens")
+    public void sendBulkReusesConnectionTest() throws Exception {
+        List<String> recipients = IntStream.range(0, 10)
+                .mapToObj(i -> "leitor" + i + "@email.com")
+                .collect(Collectors.toList());
+
+        List<String> failed = emailService.sendBulk("atrasado", recipients);
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(failed).isEmpty();
+        assertThat(received).hasSize(10);
+        assertThat(received[0].getSubject()).isEqualTo("Livro com emprestimo atrasado");
+        assertThat(transportPool.getConnectionsOpened()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve reconectar quando a conexao do pool cair")
+    public void reconnectOnFailureTest() {
+        emailService.sendMail("atrasado", "a@email.com");
+        int port = greenMail.getSmtp().getPort();
+        greenMail.stop();
+        greenMail = new GreenMail(new ServerSetup(port, null, ServerSetup.PROTOCOL_SMTP));
+        greenMail.start();
+
+        emailService.sendMail("atrasado", Arrays.asList("b@email.com", "c@email.com"));
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+        assertThat(transportPool.getConnectionsOpened()).isEqualTo(2);
+    }
+}
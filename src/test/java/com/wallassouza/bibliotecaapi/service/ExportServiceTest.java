@@ -0,0 +1,79 @@
+package com.wallassouza.bibliotecaapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.repository.BookRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanRepository;
+import com.wallassouza.bibliotecaapi.api.resource.service.ExportService;
+import com.wallassouza.bibliotecaapi.api.resource.service.ExportServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class ExportServiceTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    ExportService exportService;
+
+    @BeforeEach
+    public void setUp() {
+        exportService = new ExportServiceImpl(bookRepository, loanRepository, entityManager.getEntityManager(),
+                new ObjectMapper());
+    }
+
+    @Test
+    @DisplayName("Deve exportar os livros em CSV")
+    public void exportBooksCsvTest() throws Exception {
+        Book book = entityManager.persist(Book.builder().titulo("Aventuras, volume 1").autor("Fulano").isbn("123").build());
+        entityManager.flush();
+        entityManager.clear();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.exportBooks(output, ExportService.Format.CSV);
+
+        assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,titulo,autor,isbn\n" + book.getId() + ",\"Aventuras, volume 1\",Fulano,123\n");
+    }
+
+    @Test
+    @DisplayName("Deve exportar os emprestimos em NDJSON")
+    public void exportLoansNdjsonTest() throws Exception {
+        Book book = entityManager.persist(Book.builder().titulo("Aventuras").autor("Fulano").isbn("123").build());
+        entityManager.persist(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+        entityManager.persist(Loan.builder().book(book).customer("Ciclano").loanDate(LocalDate.now()).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.exportLoans(output, ExportService.Format.NDJSON);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"customer\":\"Fulano\"").contains("\"isbn\":\"123\"");
+        assertThat(lines[1]).contains("\"customer\":\"Ciclano\"");
+    }
+}
@@ -0,0 +1,153 @@
+package com.wallassouza.bibliotecaapi.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.LoanEvent;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanEventRepository;
+import com.wallassouza.bibliotecaapi.api.resource.service.LoanEventConsumer;
+import com.wallassouza.bibliotecaapi.api.resource.service.LoanEventDispatcher;
+import com.wallassouza.bibliotecaapi.api.resource.service.LoanEventMetricsConsumer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class LoanEventDispatcherTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    LoanEventRepository eventRepository;
+
+    List<Long> delivered = new ArrayList<>();
+    LoanEventConsumer consumer = events -> events.forEach(event -> delivered.add(event.getLoanId()));
+    LoanEventConsumer failing = mock(LoanEventConsumer.class);
+
+    LoanEventDispatcher dispatcher;
+
+    @BeforeEach
+    public void setUp() {
+        dispatcher = new LoanEventDispatcher(eventRepository, Arrays.asList(consumer, failing), 2, 60_000, 3, 7);
+    }
+
+    @Test
+    @DisplayName("Deve entregar os eventos pendentes em lotes e em ordem")
+    public void drainInBatchesTest() {
+        persistEvents(1l, 2l, 3l);
+
+        dispatcher.drain();
+        entityManager.clear();
+
+        assertThat(delivered).containsExactly(1l, 2l, 3l);
+        verify(failing, times(2)).accept(Mockito.anyList());
+        assertThat(eventRepository.findAll()).allMatch(event -> event.getDispatchedAt() != null);
+        assertThat(dispatcher.dispatchBatch()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Deve manter o lote pendente e adiar a nova tentativa quando um consumidor falhar")
+    public void retryFailedBatchTest() {
+        persistEvents(1l, 2l, 3l);
+        doThrow(new IllegalStateException("offline")).when(failing).accept(Mockito.anyList());
+
+        int dispatched = dispatcher.dispatchBatch();
+        entityManager.clear();
+        List<LoanEvent> pending = eventRepository.findAll();
+
+        assertThat(dispatched).isEqualTo(0);
+        assertThat(pending).allMatch(event -> event.getDispatchedAt() == null);
+        assertThat(pending.subList(0, 2)).allMatch(event -> event.getAttempts() == 1
+                && event.getNextAttemptAt().isAfter(LocalDateTime.now())
+                && event.getLastError().equals("offline"));
+        assertThat(pending.get(2).getAttempts()).isEqualTo(0);
+
+        // a cabeca da fila ainda esta em espera, nada e reenviado antes do horario
+        delivered.clear();
+        assertThat(dispatcher.dispatchBatch()).isEqualTo(0);
+        assertThat(delivered).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve isolar o evento que falha e descarta-lo depois do maximo de tentativas")
+    public void deadLetterPoisonEventTest() {
+        persistEvents(1l, 2l, 3l);
+        doThrow(new IllegalStateException("invalido")).when(failing).accept(Mockito.argThat(events ->
+                events.stream().anyMatch(event -> event.getLoanId().equals(1l))));
+        LoanEventDispatcher noBackoff = new LoanEventDispatcher(eventRepository, Arrays.asList(consumer, failing),
+                2, 0, 3, 7);
+
+        for (int i = 0; i < 4; i++) {
+            noBackoff.drain();
+            entityManager.clear();
+        }
+
+        List<LoanEvent> events = eventRepository.findAll();
+        assertThat(events.get(0).getDeadLetteredAt()).isNotNull();
+        assertThat(events.get(0).getAttempts()).isEqualTo(3);
+        assertThat(events.get(0).getLastError()).isEqualTo("invalido");
+        assertThat(events.subList(1, 3)).allMatch(event -> event.getDispatchedAt() != null);
+        assertThat(delivered).containsSubsequence(2l, 3l);
+        assertThat(noBackoff.dispatchBatch()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Deve contar uma vez so os eventos reenviados depois da falha de outro consumidor")
+    public void metricsCountRedeliveredOnceTest() {
+        persistEvents(1l, 2l, 3l);
+        doThrow(new IllegalStateException("offline")).doNothing().when(failing).accept(Mockito.anyList());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LoanEventDispatcher noBackoff = new LoanEventDispatcher(eventRepository,
+                Arrays.asList(new LoanEventMetricsConsumer(registry), failing), 2, 0, 3, 7);
+
+        for (int i = 0; i < 3; i++) {
+            noBackoff.drain();
+            entityManager.clear();
+        }
+
+        assertThat(eventRepository.findAll()).allMatch(event -> event.getDispatchedAt() != null);
+        assertThat(registry.counter("loan.events", "type", LoanEvent.Type.LOAN_CREATED.name()).count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve apagar apenas os eventos entregues antes do prazo de retencao")
+    public void purgeDispatchedTest() {
+        persistEvents(1l, 2l, 3l);
+        List<LoanEvent> events = eventRepository.findAll();
+        eventRepository.markDispatched(Arrays.asList(events.get(0).getId()), LocalDateTime.now().minusDays(8));
+        eventRepository.markDispatched(Arrays.asList(events.get(1).getId()), LocalDateTime.now().minusDays(1));
+        entityManager.clear();
+
+        assertThat(dispatcher.purgeDispatched()).isEqualTo(1);
+        assertThat(eventRepository.findAll()).extracting(LoanEvent::getLoanId).containsExactly(2l, 3l);
+    }
+
+    private void persistEvents(Long... loanIds) {
+        eventRepository.saveAll(Arrays.stream(loanIds)
+                .map(id -> LoanEvent.builder()
+                        .type(LoanEvent.Type.LOAN_CREATED)
+                        .loanId(id)
+                        .occurredAt(LocalDateTime.now())
+                        .build())
+                .collect(Collectors.toList()));
+        entityManager.flush();
+    }
+}
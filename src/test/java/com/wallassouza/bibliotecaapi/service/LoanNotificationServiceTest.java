@@ -0,0 +1,168 @@
+package com.wallassouza.bibliotecaapi.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.model.LoanNotification;
+import com.wallassouza.bibliotecaapi.api.resource.repository.JobWatermarkRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanNotificationRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanRepository;
+import com.wallassouza.bibliotecaapi.api.resource.service.LoanNotificationService;
+import com.wallassouza.bibliotecaapi.api.resource.service.LoanNotificationServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static com.wallassouza.bibliotecaapi.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class LoanNotificationServiceTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    LoanNotificationRepository notificationRepository;
+
+    @Autowired
+    JobWatermarkRepository watermarkRepository;
+
+    LoanNotificationService notificationService;
+
+    LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    public void setUp() {
+        notificationService = new LoanNotificationServiceImpl(loanRepository, notificationRepository, watermarkRepository);
+        ReflectionTestUtils.setField(notificationService, "reminderIntervalDays", 7);
+        ReflectionTestUtils.setField(notificationService, "maxNotifications", 2);
+        ReflectionTestUtils.setField(notificationService, "maxFailures", 2);
+    }
+
+    @Test
+    @DisplayName("Deve buscar apenas emprestimos que venceram desde a marca d'agua e ainda nao foram notificados")
+    public void findNewlyOverdueTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+        persistLoan(book, "antigo@email.com", today.minusDays(10), null);
+        Loan crossed = persistLoan(book, "fulano@email.com", today.minusDays(1), null);
+        persistLoan(book, "futuro@email.com", today.plusDays(2), null);
+        persistLoan(book, "devolvido@email.com", today.minusDays(1), true);
+
+        List<Loan> before = notificationService.findNewlyOverdue(today.minusDays(3), today, 0l, 10);
+        notificationService.registerSent(Collections.singletonList(crossed.getId()));
+        entityManager.flush();
+        List<Loan> after = notificationService.findNewlyOverdue(today.minusDays(3), today, 0l, 10);
+
+        assertThat(before).containsExactly(crossed);
+        assertThat(after).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve agendar lembretes ate o limite de notificacoes")
+    public void reminderPolicyTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+        Loan late = persistLoan(book, "fulano@email.com", today.minusDays(1), null);
+
+        notificationService.registerSent(Collections.singletonList(late.getId()));
+        entityManager.flush();
+        LoanNotification first = notificationRepository.findById(late.getId()).get();
+        List<Loan> dueTomorrow = notificationService.findRemindersDue(today.plusDays(1), 0l, 10);
+        List<Loan> dueNextWeek = notificationService.findRemindersDue(today.plusDays(7), 0l, 10);
+
+        assertThat(first.getSentCount()).isEqualTo(1);
+        assertThat(first.getLastSentOn()).isEqualTo(today);
+        assertThat(first.getNextReminderOn()).isEqualTo(today.plusDays(7));
+        assertThat(dueTomorrow).isEmpty();
+        assertThat(dueNextWeek).containsExactly(late);
+
+        notificationService.registerSent(Collections.singletonList(late.getId()));
+        entityManager.flush();
+
+        assertThat(notificationRepository.findById(late.getId()).get().getNextReminderOn()).isNull();
+        assertThat(notificationService.findRemindersDue(today.plusDays(365), 0l, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve tentar novamente no dia seguinte os emails que falharam")
+    public void registerFailedTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+        Loan late = persistLoan(book, "fulano@email.com", today.minusDays(1), null);
+
+        notificationService.registerFailed(Collections.singletonList(late.getId()));
+        entityManager.flush();
+
+        LoanNotification notification = notificationRepository.findById(late.getId()).get();
+        assertThat(notification.getSentCount()).isEqualTo(0);
+        assertThat(notification.getFailedCount()).isEqualTo(1);
+        assertThat(notification.getNextReminderOn()).isEqualTo(today.plusDays(1));
+        assertThat(notificationService.findRemindersDue(today.plusDays(1), 0l, 10)).containsExactly(late);
+        assertThat(notificationService.findNewlyOverdue(today.minusDays(3), today, 0l, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve parar de tentar um email depois do limite de falhas seguidas")
+    public void registerFailedLimitTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+        Loan late = persistLoan(book, "fulano@email.com", today.minusDays(1), null);
+
+        notificationService.registerFailed(Collections.singletonList(late.getId()));
+        notificationService.registerSent(Collections.singletonList(late.getId()));
+        entityManager.flush();
+        assertThat(notificationRepository.findById(late.getId()).get().getFailedCount()).isEqualTo(0);
+
+        notificationService.registerFailed(Collections.singletonList(late.getId()));
+        notificationService.registerFailed(Collections.singletonList(late.getId()));
+        entityManager.flush();
+
+        LoanNotification notification = notificationRepository.findById(late.getId()).get();
+        assertThat(notification.getFailedCount()).isEqualTo(2);
+        assertThat(notification.getFailedOn()).isEqualTo(today);
+        assertThat(notification.getNextReminderOn()).isNull();
+        assertThat(notificationService.findRemindersDue(today.plusDays(365), 0l, 10)).isEmpty();
+        assertThat(notificationService.findNewlyOverdue(today.minusDays(3), today, 0l, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve guardar a marca d'agua e comecar hoje quando nao houver emprestimo em aberto")
+    public void watermarkTest() {
+        assertThat(notificationService.getWatermark()).isEqualTo(today);
+
+        notificationService.advanceWatermark(today.minusDays(2));
+
+        assertThat(notificationService.getWatermark()).isEqualTo(today.minusDays(2));
+    }
+
+    @Test
+    @DisplayName("Deve avisar na primeira execucao um emprestimo vencido ha 40 dias")
+    public void firstRunNotifiesOldLateLoanTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+        Loan late = persistLoan(book, "fulano@email.com", today.minusDays(40), null);
+        persistLoan(book, "devolvido@email.com", today.minusDays(60), true);
+
+        LocalDate from = notificationService.getWatermark();
+
+        assertThat(from).isEqualTo(today.minusDays(41));
+        assertThat(notificationService.findNewlyOverdue(from, today, 0l, 10)).containsExactly(late);
+    }
+
+    private Loan persistLoan(Book book, String email, LocalDate dueDate, Boolean returned) {
+        return entityManager.persist(Loan.builder().book(book).customer("Fulano").email(email)
+                .loanDate(dueDate.minusDays(4)).dueDate(dueDate).returned(returned).build());
+    }
+}
@@ -0,0 +1,119 @@
+package com.wallassouza.bibliotecaapi.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.exception.BusinessException;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.repository.BookRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanRepository;
+import com.wallassouza.bibliotecaapi.api.resource.service.LoanService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class LoanServiceConcurrencyTest {
+
+    static final int THREADS = 16;
+    static final int ATTEMPTS_PER_BOOK = 64;
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Test
+    @DisplayName("Deve emprestar cada livro exatamente uma vez sob concorrencia")
+    public void exactlyOnceLendingTest() throws Exception {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            books.add(bookRepository.save(Book.builder().titulo("aventuras").autor("fulano").isbn("stress-" + i).build()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger lent = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int attempt = 0; attempt < ATTEMPTS_PER_BOOK; attempt++) {
+            for (Book book : books) {
+                String customer = "customer-" + attempt;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        loanService.save(Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build());
+                        lent.incrementAndGet();
+                    } catch (BusinessException ex) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(lent.get()).isEqualTo(books.size());
+        assertThat(rejected.get()).isEqualTo(books.size() * (ATTEMPTS_PER_BOOK - 1));
+        for (Book book : books) {
+            assertThat(loanRepository.findByBook(book, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve permitir novo emprestimo depois da devolucao")
+    public void lendAgainAfterReturnTest() {
+        Book book = bookRepository.save(Book.builder().titulo("aventuras").autor("fulano").isbn("stress-return").build());
+
+        Loan loan = loanService.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+        loanService.update(loan.getId(), true);
+
+        Loan again = loanService.save(Loan.builder().book(book).customer("Ciclano").loanDate(LocalDate.now()).build());
+
+        assertThat(again.getId()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Nao deve liberar o emprestimo atual ao devolver de novo um emprestimo antigo")
+    public void returnOldLoanAgainTest() {
+        Book book = bookRepository.save(Book.builder().titulo("aventuras").autor("fulano").isbn("stress-stale").build());
+
+        Loan old = loanService.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+        loanService.update(old.getId(), true);
+        loanService.save(Loan.builder().book(book).customer("Ciclano").loanDate(LocalDate.now()).build());
+
+        loanService.update(old.getId(), true);
+
+        Throwable lentTwice = catchThrowable(() ->
+                loanService.save(Loan.builder().book(book).customer("Beltrano").loanDate(LocalDate.now()).build()));
+        assertThat(lentTwice).isInstanceOf(BusinessException.class).hasMessage("Book já emprestado");
+
+        assertThat(catchThrowable(() -> loanService.update(old.getId(), false)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Emprestimo já devolvido");
+    }
+}
@@ -1,10 +1,19 @@
 package com.wallassouza.bibliotecaapi.service;
 
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanBatchResultDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanDTO;
 import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanFilterDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanReturnDTO;
 import com.wallassouza.bibliotecaapi.api.resource.exception.BusinessException;
+import com.wallassouza.bibliotecaapi.api.resource.model.ActiveLoan;
 import com.wallassouza.bibliotecaapi.api.resource.model.Book;
 import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.model.LoanEvent;
+import com.wallassouza.bibliotecaapi.api.resource.repository.ActiveLoanRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.BookRepository;
+import com.wallassouza.bibliotecaapi.api.resource.repository.LoanEventRepository;
 import com.wallassouza.bibliotecaapi.api.resource.repository.LoanRepository;
+import com.wallassouza.bibliotecaapi.api.resource.service.ApproximateCountCache;
 import com.wallassouza.bibliotecaapi.api.resource.service.LoanService;
 import com.wallassouza.bibliotecaapi.api.resource.service.LoanServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +22,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -22,6 +33,7 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,10 +48,17 @@ public class LoanServiceTest {
     LoanService loanService;
     @MockBean
     LoanRepository loanRepository;
+    @MockBean
+    ActiveLoanRepository activeLoanRepository;
+    @MockBean
+    BookRepository bookRepository;
+    @MockBean
+    LoanEventRepository eventRepository;
 
     @BeforeEach
     public void setUp(){
-        this.loanService = new LoanServiceImpl(loanRepository);
+        this.loanService = new LoanServiceImpl(loanRepository, activeLoanRepository, bookRepository, eventRepository,
+                new ApproximateCountCache(new SyncTaskExecutor(), 60_000, 100));
     }
 
     @Test
@@ -60,11 +79,15 @@ public class LoanServiceTest {
                 .loanDate(LocalDate.now())
                 .build();
 
-        when(loanRepository.existsByBookAndNotReturned(book)).thenReturn(false);
+        when(activeLoanRepository.acquire(book.getId())).thenReturn(1);
         when(loanRepository.save(loan)).thenReturn(savedLoan);
 
         Loan saved = loanService.save(loan);
 
+        verify(activeLoanRepository).acquire(book.getId());
+        verify(eventRepository).save(Mockito.argThat(event ->
+                event.getType() == LoanEvent.Type.LOAN_CREATED && event.getLoanId().equals(1l)));
+
         assertThat(saved.getId()).isEqualTo(savedLoan.getId());
         assertThat(saved.getBook()).isEqualTo(savedLoan.getBook());
         assertThat(saved.getCustomer()).isEqualTo(savedLoan.getCustomer());
@@ -83,7 +106,7 @@ public class LoanServiceTest {
                 .loanDate(LocalDate.now())
                 .build();
 
-        when(loanRepository.existsByBookAndNotReturned(book)).thenReturn(true);
+        when(activeLoanRepository.acquire(book.getId())).thenReturn(0);
 
         Throwable ex = catchThrowable(() -> loanService.save(savingLoan));
 
@@ -92,6 +115,23 @@ public class LoanServiceTest {
                 .hasMessage("Book já emprestado");
 
         verify(loanRepository, never()).save(savingLoan);
+        verify(eventRepository, never()).save(Mockito.any(LoanEvent.class));
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negocio quando outra transacao grava a marca do livro ao mesmo tempo.")
+    public void concurrentlyLoanedBookSaveTest(){
+        Loan savingLoan = createLoan();
+
+        when(activeLoanRepository.acquire(savingLoan.getBook().getId()))
+                .thenThrow(new DataIntegrityViolationException("active loan"));
+
+        Throwable ex = catchThrowable(() -> loanService.save(savingLoan));
+
+        assertThat(ex)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Book já emprestado");
+        verify(loanRepository, never()).save(savingLoan);
     }
 
     @Test
@@ -118,18 +158,93 @@ public class LoanServiceTest {
     }
 
     @Test
-    @DisplayName("Deve atualizar um emprestimo.")
+    @DisplayName("Deve devolver um emprestimo.")
     public void updateLoanTest(){
         Loan loan = createLoan();
-        String customer = "Fulano";
-        loan.setReturned(true);
+        loan.setId(1l);
 
-        when( loanRepository.save(loan)).thenReturn(loan);
+        when( loanRepository.findById(1l)).thenReturn(Optional.of(loan));
 
-        Loan updatedLoan = loanService.update(loan);
+        Loan updatedLoan = loanService.update(1l, true).get();
 
         assertThat(updatedLoan.getReturned()).isTrue();
-        verify(loanRepository).save(loan);
+        verify(activeLoanRepository).release(loan.getBook().getId());
+        verify(eventRepository).save(Mockito.argThat(event -> event.getType() == LoanEvent.Type.LOAN_RETURNED));
+        assertThat(updatedLoan.getReturnDate()).isEqualTo(LocalDate.now());
+    }
+
+    @Test
+    @DisplayName("Deve retornar vazio ao devolver um emprestimo inexistente.")
+    public void updateInexistentLoanTest(){
+        when( loanRepository.findById(1l)).thenReturn(Optional.empty());
+
+        assertThat(loanService.update(1l, true)).isEmpty();
+        verify(activeLoanRepository, never()).release(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Nao deve contar de novo nas estatisticas um emprestimo ja devolvido.")
+    public void updateAlreadyReturnedLoanTest(){
+        Loan loan = createLoan();
+        loan.setId(1l);
+        loan.setReturned(true);
+        loan.setReturnDate(LocalDate.now().minusDays(1));
+
+        when( loanRepository.findById(1l)).thenReturn(Optional.of(loan));
+
+        loanService.update(1l, true);
+
+        assertThat(loan.getReturnDate()).isEqualTo(LocalDate.now().minusDays(1));
+        verify(activeLoanRepository, never()).release(Mockito.anyLong());
+        verify(eventRepository, never()).save(Mockito.any(LoanEvent.class));
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negocio ao reabrir um emprestimo devolvido.")
+    public void reopenReturnedLoanTest(){
+        Loan loan = createLoan();
+        loan.setId(1l);
+        loan.setReturned(true);
+        loan.setReturnDate(LocalDate.now().minusDays(1));
+
+        when( loanRepository.findById(1l)).thenReturn(Optional.of(loan));
+
+        Throwable exception = catchThrowable(() -> loanService.update(1l, false));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Emprestimo já devolvido");
+        assertThat(loan.getReturned()).isTrue();
+        verify(activeLoanRepository, never()).acquire(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Nao deve liberar o livro de um emprestimo devolvido antes de existir a data de devolucao.")
+    public void updateLegacyReturnedLoanTest(){
+        Loan loan = createLoan();
+        loan.setId(1l);
+        loan.setReturned(true);
+
+        when( loanRepository.findById(1l)).thenReturn(Optional.of(loan));
+
+        loanService.update(1l, true);
+
+        assertThat(loan.getReturnDate()).isNull();
+        verify(activeLoanRepository, never()).release(Mockito.anyLong());
+        verify(eventRepository, never()).save(Mockito.any(LoanEvent.class));
+    }
+
+    @Test
+    @DisplayName("Nao deve liberar o livro ao atualizar um emprestimo nao devolvido.")
+    public void updateNotReturnedLoanTest(){
+        Loan loan = createLoan();
+        loan.setId(1l);
+
+        when( loanRepository.findById(1l)).thenReturn(Optional.of(loan));
+
+        loanService.update(1l, false);
+
+        assertThat(loan.getReturned()).isFalse();
+        verify(activeLoanRepository, never()).release(Mockito.anyLong());
+        verify(eventRepository, never()).save(Mockito.any(LoanEvent.class));
     }
 
     public static Loan createLoan(){
@@ -172,4 +287,95 @@ public class LoanServiceTest {
         assertThat(resultado.getPageable().getPageSize()).isEqualTo(10);
 
     }
+
+    @Test
+    @DisplayName("Deve registrar emprestimos em lote com resultado por item")
+    public void saveAllLoansTest(){
+        Book free = Book.builder().id(1l).isbn("111").build();
+        Book loaned = Book.builder().id(2l).isbn("222").build();
+        when(bookRepository.findByIsbnIn(Mockito.anyCollection())).thenReturn(Arrays.asList(free, loaned));
+        when(activeLoanRepository.findAllById(Mockito.anyIterable())).thenReturn(Arrays.asList(new ActiveLoan(2l)));
+        when(activeLoanRepository.acquireAll(Collections.singletonList(1l))).thenReturn(1);
+        when(loanRepository.saveAll(Mockito.anyIterable())).thenAnswer(invocation -> {
+            List<Loan> loans = invocation.getArgument(0);
+            loans.forEach(loan -> loan.setId(10l));
+            return loans;
+        });
+
+        List<LoanBatchResultDTO> results = loanService.saveAll(Arrays.asList(
+                LoanDTO.builder().isbn("111").customer("Fulano").build(),
+                LoanDTO.builder().isbn("222").customer("Fulano").build(),
+                LoanDTO.builder().isbn("333").customer("Fulano").build(),
+                LoanDTO.builder().isbn("111").customer("Ciclano").build()));
+
+        assertThat(results).extracting(LoanBatchResultDTO::isSuccess).containsExactly(true, false, false, false);
+        assertThat(results.get(0).getLoanId()).isEqualTo(10l);
+        assertThat(results.get(1).getError()).isEqualTo("Book já emprestado");
+        assertThat(results.get(2).getError()).isEqualTo("Book not found for passed isbn");
+        assertThat(results.get(3).getError()).isEqualTo("Book já emprestado");
+        verify(bookRepository, times(1)).findByIsbnIn(Mockito.anyCollection());
+        verify(activeLoanRepository, times(1)).acquireAll(Collections.singletonList(1l));
+        verify(eventRepository, times(1)).saveAll(Mockito.argThat(events ->
+                ((List<LoanEvent>) events).size() == 1));
+    }
+
+    @Test
+    @DisplayName("Deve recusar o lote quando outra transacao emprestou um dos livros depois da leitura das marcas")
+    public void saveAllLoansRaceTest(){
+        Book free = Book.builder().id(1l).isbn("111").build();
+        when(bookRepository.findByIsbnIn(Mockito.anyCollection())).thenReturn(Collections.singletonList(free));
+        when(activeLoanRepository.acquireAll(Collections.singletonList(1l))).thenReturn(0);
+
+        Throwable ex = catchThrowable(() -> loanService.saveAll(Collections.singletonList(
+                LoanDTO.builder().isbn("111").customer("Fulano").build())));
+
+        assertThat(ex).isInstanceOf(BusinessException.class).hasMessage("Book já emprestado");
+        verify(loanRepository, never()).saveAll(Mockito.anyIterable());
+    }
+
+    @Test
+    @DisplayName("Deve devolver emprestimos em lote liberando os livros de uma vez")
+    public void returnAllLoansTest(){
+        Loan loan = createLoan();
+        loan.setId(1l);
+        loan.getBook().setId(5l);
+        when(loanRepository.findAllById(Mockito.anyIterable())).thenReturn(Arrays.asList(loan));
+
+        List<LoanBatchResultDTO> results = loanService.returnAll(Arrays.asList(
+                LoanReturnDTO.builder().id(1l).returned(true).build(),
+                LoanReturnDTO.builder().id(2l).returned(true).build()));
+
+        assertThat(results).extracting(LoanBatchResultDTO::isSuccess).containsExactly(true, false);
+        assertThat(results.get(1).getError()).isEqualTo("Loan not found");
+        assertThat(loan.getReturned()).isTrue();
+        verify(activeLoanRepository, times(1)).releaseAll(Collections.singleton(5l));
+        verify(activeLoanRepository, never()).release(Mockito.anyLong());
+        verify(eventRepository, times(1)).saveAll(Mockito.argThat(events ->
+                ((List<LoanEvent>) events).get(0).getType() == LoanEvent.Type.LOAN_RETURNED));
+    }
+
+    @Test
+    @DisplayName("Nao deve liberar o livro ao devolver em lote um emprestimo ja devolvido")
+    public void returnAllAlreadyReturnedLoansTest(){
+        // devolvido antes da V6: sem data de devolucao
+        Loan stale = createLoan();
+        stale.setId(1l);
+        stale.setReturned(true);
+        Loan reopened = createLoan();
+        reopened.setId(2l);
+        reopened.setReturned(true);
+        reopened.setReturnDate(LocalDate.now().minusDays(3));
+        when(loanRepository.findAllById(Mockito.anyIterable())).thenReturn(Arrays.asList(stale, reopened));
+
+        List<LoanBatchResultDTO> results = loanService.returnAll(Arrays.asList(
+                LoanReturnDTO.builder().id(1l).returned(true).build(),
+                LoanReturnDTO.builder().id(2l).returned(false).build()));
+
+        assertThat(results).extracting(LoanBatchResultDTO::isSuccess).containsExactly(true, false);
+        assertThat(results.get(1).getError()).isEqualTo("Emprestimo já devolvido");
+        assertThat(reopened.getReturned()).isTrue();
+        assertThat(stale.getReturnDate()).isNull();
+        verify(activeLoanRepository, never()).releaseAll(Mockito.anyCollection());
+        verify(eventRepository, times(1)).saveAll(Collections.emptyList());
+    }
 }
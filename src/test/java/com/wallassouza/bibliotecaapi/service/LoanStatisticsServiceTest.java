@@ -0,0 +1,202 @@
+package com.wallassouza.bibliotecaapi.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.config.SqlStatementCounter;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.BookLoanCountDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.DailyLoansDTO;
+import com.wallassouza.bibliotecaapi.api.resource.dto.bookdto.LoanDurationDTO;
+import com.wallassouza.bibliotecaapi.api.resource.model.Book;
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.model.LoanEvent;
+import com.wallassouza.bibliotecaapi.api.resource.service.LoanStatisticsService;
+import com.wallassouza.bibliotecaapi.api.resource.service.LoanStatisticsServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import(LoanStatisticsServiceImpl.class)
+public class LoanStatisticsServiceTest {
+
+    static final LocalDate DAY = LocalDate.of(2021, 9, 1);
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    LoanStatisticsService statisticsService;
+
+    @Test
+    @DisplayName("Deve atualizar as estatisticas a cada evento de emprestimo e devolucao")
+    public void incrementalStatisticsTest() {
+        Book first = persistBook("111");
+        Book second = persistBook("222");
+        Loan a = persistLoan(first, DAY, null);
+        Loan b = persistLoan(second, DAY, null);
+        Loan c = persistLoan(first, DAY.plusDays(2), null);
+
+        statisticsService.record(Arrays.asList(created(a), created(b)));
+        statisticsService.record(Collections.singletonList(created(c)));
+        returnLoan(a, DAY.plusDays(1));
+        returnLoan(b, DAY.plusDays(3));
+        statisticsService.record(Arrays.asList(returned(a), returned(b)));
+
+        assertStatistics(first, second);
+    }
+
+    @Test
+    @DisplayName("Nao deve contar de novo um lote de eventos reenviado")
+    public void redeliveredEventsTest() {
+        Book first = persistBook("111");
+        Book second = persistBook("222");
+        Loan a = persistLoan(first, DAY, null);
+        Loan b = persistLoan(second, DAY, null);
+        List<LoanEvent> events = Arrays.asList(created(a), created(b));
+
+        statisticsService.record(events);
+        statisticsService.record(events);
+
+        assertThat(statisticsService.getMostBorrowed(10)).extracting(BookLoanCountDTO::getLoanCount)
+                .containsExactly(1l, 1l);
+        assertThat(statisticsService.getDailyLoans(DAY, DAY))
+                .extracting(DailyLoansDTO::getStarted, DailyLoansDTO::getActive)
+                .containsExactly(tuple(2l, 2l));
+    }
+
+    @Test
+    @DisplayName("Deve contar um livro devolvido e emprestado de novo no mesmo lote")
+    public void sameBookTwiceInBatchTest() {
+        Book book = persistBook("111");
+        Loan a = persistLoan(book, DAY, DAY);
+        Loan b = persistLoan(book, DAY, null);
+
+        statisticsService.record(Arrays.asList(created(a), returned(a), created(b)));
+
+        assertThat(statisticsService.getMostBorrowed(10)).extracting(BookLoanCountDTO::getLoanCount)
+                .containsExactly(2l);
+        assertThat(statisticsService.getDailyLoans(DAY, DAY))
+                .extracting(DailyLoansDTO::getActive)
+                .containsExactly(1l);
+    }
+
+    @Test
+    @DisplayName("Deve gravar as estatisticas de um lote com o mesmo numero de comandos, existindo as linhas ou nao")
+    public void constantStatementCountTest() {
+        Book first = persistBook("111");
+        Book second = persistBook("222");
+        List<LoanEvent> firstBatch = Arrays.asList(created(persistLoan(first, DAY, null)),
+                created(persistLoan(second, DAY, null)));
+        List<LoanEvent> secondBatch = Arrays.asList(created(persistLoan(first, DAY, null)),
+                created(persistLoan(second, DAY, null)));
+        entityManager.flush();
+
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            statisticsService.record(firstBatch);
+            assertThat(scope.count()).isEqualTo(7);
+        }
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            statisticsService.record(secondBatch);
+            assertThat(scope.count()).isEqualTo(7);
+        }
+        assertThat(statisticsService.getMostBorrowed(10)).extracting(BookLoanCountDTO::getLoanCount)
+                .containsExactly(2l, 2l);
+    }
+
+    @Test
+    @DisplayName("Deve reconstruir as estatisticas a partir dos emprestimos gravados")
+    public void rebuildStatisticsTest() {
+        Book first = persistBook("111");
+        Book second = persistBook("222");
+        persistLoan(first, DAY, DAY.plusDays(1));
+        persistLoan(second, DAY, DAY.plusDays(3));
+        LoanEvent pending = created(persistLoan(first, DAY.plusDays(2), null));
+        statisticsService.record(Collections.singletonList(created(persistLoan(second, DAY.minusDays(1), null))));
+        // devolvido antes da V6: conta nos mais emprestados, mas fica fora das estatisticas diarias
+        entityManager.persist(Loan.builder().book(second).customer("Fulano")
+                .loanDate(DAY.minusDays(5)).dueDate(DAY.minusDays(1)).returned(true).build());
+
+        statisticsService.rebuild();
+        entityManager.clear();
+        // o rebuild ja contou o emprestimo; o evento entregue depois nao soma de novo
+        statisticsService.record(Collections.singletonList(pending));
+
+        List<BookLoanCountDTO> mostBorrowed = statisticsService.getMostBorrowed(10);
+        assertThat(mostBorrowed).extracting(BookLoanCountDTO::getLoanCount).containsExactly(3l, 2l);
+        assertThat(statisticsService.getDailyLoans(DAY.minusDays(1), DAY.minusDays(1)))
+                .extracting(DailyLoansDTO::getActive)
+                .containsExactly(1l);
+        assertThat(statisticsService.getDailyLoans(DAY.plusDays(4), DAY.plusDays(4)))
+                .extracting(DailyLoansDTO::getActive)
+                .containsExactly(2l);
+        LoanDurationDTO duration = statisticsService.getLoanDuration(DAY.minusDays(5), DAY.plusDays(4));
+        assertThat(duration.getReturnedLoans()).isEqualTo(2);
+        assertThat(duration.getAverageDays()).isEqualTo(2.0);
+    }
+
+    private void assertStatistics(Book first, Book second) {
+        List<BookLoanCountDTO> mostBorrowed = statisticsService.getMostBorrowed(1);
+        assertThat(mostBorrowed).hasSize(1);
+        assertThat(mostBorrowed.get(0).getBookId()).isEqualTo(first.getId());
+        assertThat(mostBorrowed.get(0).getIsbn()).isEqualTo("111");
+        assertThat(mostBorrowed.get(0).getLoanCount()).isEqualTo(2l);
+        assertThat(statisticsService.getMostBorrowed(10)).extracting(BookLoanCountDTO::getBookId)
+                .containsExactly(first.getId(), second.getId());
+
+        List<DailyLoansDTO> daily = statisticsService.getDailyLoans(DAY.minusDays(1), DAY.plusDays(4));
+        assertThat(daily).extracting(DailyLoansDTO::getDay)
+                .containsExactly(DAY.minusDays(1), DAY, DAY.plusDays(1), DAY.plusDays(2), DAY.plusDays(3),
+                        DAY.plusDays(4));
+        assertThat(daily).extracting(DailyLoansDTO::getActive).containsExactly(0l, 2l, 1l, 2l, 1l, 1l);
+        assertThat(statisticsService.getDailyLoans(DAY.plusDays(3), DAY.plusDays(3)))
+                .extracting(DailyLoansDTO::getActive)
+                .containsExactly(1l);
+
+        LoanDurationDTO duration = statisticsService.getLoanDuration(DAY, DAY.plusDays(4));
+        assertThat(duration.getReturnedLoans()).isEqualTo(2);
+        assertThat(duration.getAverageDays()).isEqualTo(2.0);
+        assertThat(statisticsService.getLoanDuration(DAY.plusDays(4), DAY.plusDays(4)).getAverageDays()).isNull();
+    }
+
+    private Book persistBook(String isbn) {
+        return entityManager.persist(Book.builder().titulo("Estatistica").autor("Fulano").isbn(isbn).build());
+    }
+
+    private Loan persistLoan(Book book, LocalDate loanDate, LocalDate returnDate) {
+        return entityManager.persist(Loan.builder()
+                .book(book)
+                .customer("Fulano")
+                .loanDate(loanDate)
+                .dueDate(loanDate.plusDays(4))
+                .returned(returnDate != null)
+                .returnDate(returnDate)
+                .build());
+    }
+
+    private LoanEvent created(Loan loan) {
+        return entityManager.persist(LoanEvent.of(LoanEvent.Type.LOAN_CREATED, loan));
+    }
+
+    private LoanEvent returned(Loan loan) {
+        return entityManager.persist(LoanEvent.of(LoanEvent.Type.LOAN_RETURNED, loan));
+    }
+
+    private void returnLoan(Loan loan, LocalDate returnDate) {
+        loan.setReturned(true);
+        loan.setReturnDate(returnDate);
+    }
+}
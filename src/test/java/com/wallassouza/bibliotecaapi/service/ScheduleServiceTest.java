@@ -0,0 +1,102 @@
+package com.wallassouza.bibliotecaapi.service;
+
+import com.wallassouza.bibliotecaapi.api.resource.model.Loan;
+import com.wallassouza.bibliotecaapi.api.resource.service.EmailService;
+import com.wallassouza.bibliotecaapi.api.resource.service.LoanNotificationService;
+import com.wallassouza.bibliotecaapi.api.resource.service.ScheduleService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.mail.MailSendException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ScheduleServiceTest {
+
+    ScheduleService scheduleService;
+
+    @MockBean
+    LoanNotificationService notificationService;
+
+    @MockBean
+    EmailService emailService;
+
+    LocalDate today = LocalDate.now();
+    LocalDate watermark = today.minusDays(1);
+
+    @BeforeEach
+    public void setUp() {
+        scheduleService = new ScheduleService(notificationService, emailService, new SyncTaskExecutor());
+        ReflectionTestUtils.setField(scheduleService, "mensagem", "atrasado");
+        ReflectionTestUtils.setField(scheduleService, "pageSize", 2);
+        ReflectionTestUtils.setField(scheduleService, "maxAttempts", 2);
+        ReflectionTestUtils.setField(scheduleService, "retryBackoffMs", 0L);
+        when(notificationService.getWatermark()).thenReturn(watermark);
+    }
+
+    @Test
+    @DisplayName("Deve enviar um email por destinatario em cada pagina de emprestimos recem vencidos")
+    public void sendMailPerRecipientTest() {
+        List<Loan> firstPage = Arrays.asList(loan(1l, "a@email.com"), loan(2l, "a@email.com"));
+        List<Loan> secondPage = Collections.singletonList(loan(3l, "b@email.com"));
+        when(notificationService.findNewlyOverdue(watermark, today, 0l, 2)).thenReturn(firstPage);
+        when(notificationService.findNewlyOverdue(watermark, today, 2l, 2)).thenReturn(secondPage);
+
+        scheduleService.sendMailToLateLoans();
+
+        verify(emailService, times(1)).sendMail("atrasado", "a@email.com");
+        verify(emailService, times(1)).sendMail("atrasado", "b@email.com");
+        verify(notificationService).registerSent(Arrays.asList(1l, 2l));
+        verify(notificationService).registerSent(Collections.singletonList(3l));
+        verify(notificationService, never()).registerFailed(Mockito.anyCollection());
+        verify(notificationService).advanceWatermark(today);
+    }
+
+    @Test
+    @DisplayName("Deve tentar novamente e registrar como falha os emails nao enviados")
+    public void retryAndSkipFailedTest() {
+        when(notificationService.findNewlyOverdue(watermark, today, 0l, 2))
+                .thenReturn(Arrays.asList(loan(1l, "a@email.com"), loan(2l, "b@email.com")));
+        when(notificationService.findNewlyOverdue(watermark, today, 2l, 2)).thenReturn(Collections.emptyList());
+        doThrow(new MailSendException("offline")).when(emailService).sendMail("atrasado", "a@email.com");
+        doThrow(new MailSendException("offline")).doNothing().when(emailService).sendMail("atrasado", "b@email.com");
+
+        scheduleService.sendMailToLateLoans();
+
+        verify(emailService, times(2)).sendMail("atrasado", "a@email.com");
+        verify(emailService, times(2)).sendMail("atrasado", "b@email.com");
+        verify(notificationService).registerSent(Collections.singletonList(2l));
+        verify(notificationService).registerFailed(Collections.singletonList(1l));
+        verify(notificationService, never()).registerSent(Mockito.argThat(ids -> ids.contains(1l)));
+    }
+
+    @Test
+    @DisplayName("Deve enviar os lembretes agendados para hoje")
+    public void sendRemindersTest() {
+        when(notificationService.findRemindersDue(today, 0l, 2))
+                .thenReturn(Collections.singletonList(loan(5l, "c@email.com")));
+
+        scheduleService.sendMailToLateLoans();
+
+        verify(emailService, times(1)).sendMail("atrasado", "c@email.com");
+        verify(notificationService).registerSent(Collections.singletonList(5l));
+    }
+
+    private Loan loan(Long id, String email) {
+        return Loan.builder().id(id).customer("Fulano").email(email).build();
+    }
+}